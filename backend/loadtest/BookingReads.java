@@ -0,0 +1,102 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The request mix of booking-reads.js for hosts without k6, at a fixed number of clients:
+ * 70% day slots, 20% booking history, 10% slot ranges. Requests that finish during the
+ * warm-up are not counted. Needs Java 21+ for its virtual-thread clients.
+ *
+ *   java loadtest/BookingReads.java http://localhost:8080/api <jwt> 2030-01-15 1000 15 45
+ *
+ * Arguments: base URL, token, date, clients, warm-up seconds, measured seconds.
+ */
+public class BookingReads {
+    
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args[0];
+        String token = args[1];
+        String date = args[2];
+        int clients = Integer.parseInt(args[3]);
+        Duration warmUp = Duration.ofSeconds(Long.parseLong(args[4]));
+        Duration measured = Duration.ofSeconds(Long.parseLong(args[5]));
+        
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        String[] urls = {
+                baseUrl + "/bookings/available-slots?date=" + date,
+                baseUrl + "/bookings/my-bookings",
+                baseUrl + "/bookings/available-slots/range?from=" + date + "&to=" + date};
+        
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stopped = new AtomicBoolean();
+        AtomicLong failures = new AtomicLong();
+        ConcurrentLinkedQueue<long[]> latencies = new ConcurrentLinkedQueue<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                long[] nanos = new long[1024];
+                int count = 0;
+                while (!stopped.get()) {
+                    double roll = ThreadLocalRandom.current().nextDouble();
+                    String url = roll < 0.7 ? urls[0] : roll < 0.9 ? urls[1] : urls[2];
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                            .header("Authorization", "Bearer " + token)
+                            .timeout(Duration.ofSeconds(60))
+                            .build();
+                    long start = System.nanoTime();
+                    boolean ok;
+                    try {
+                        ok = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    long elapsed = System.nanoTime() - start;
+                    if (!measuring.get() || stopped.get()) {
+                        continue;
+                    }
+                    if (!ok) {
+                        failures.incrementAndGet();
+                        continue;
+                    }
+                    if (count == nanos.length) {
+                        nanos = Arrays.copyOf(nanos, count * 2);
+                    }
+                    nanos[count++] = elapsed;
+                }
+                latencies.add(Arrays.copyOf(nanos, count));
+            }));
+        }
+        
+        Thread.sleep(warmUp.toMillis());
+        measuring.set(true);
+        long start = System.nanoTime();
+        Thread.sleep(measured.toMillis());
+        stopped.set(true);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        long[] sorted = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        if (sorted.length == 0) {
+            System.out.printf("clients=%d no successful requests, %d failed%n", clients, failures.get());
+            return;
+        }
+        System.out.printf("clients=%d req/s=%.0f p50=%.0fms p99=%.0fms failed=%d%n", clients,
+                sorted.length / seconds, sorted[sorted.length / 2] / 1e6,
+                sorted[(int) (sorted.length * 0.99)] / 1e6, failures.get());
+    }
+}
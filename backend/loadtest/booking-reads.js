@@ -0,0 +1,48 @@
+// k6 load profile for the read-heavy booking endpoints.
+//
+//   k6 run -e TOKEN=<jwt> -e DATE=2030-01-15 loadtest/booking-reads.js
+//
+// Run it once against the default (platform thread) setup and once with
+// --spring.profiles.active=virtual-threads, then compare http_reqs/s and the
+// p(99) of http_req_duration in the two summaries.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080/api';
+const TOKEN = __ENV.TOKEN;
+const DATE = __ENV.DATE;
+
+export const options = {
+  scenarios: {
+    readers: {
+      executor: 'ramping-vus',
+      startVUs: 0,
+      stages: [
+        { duration: '30s', target: 250 },
+        { duration: '30s', target: 1000 },
+        { duration: '2m', target: 1500 },
+        { duration: '30s', target: 0 },
+      ],
+      gracefulRampDown: '10s',
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+};
+
+const params = { headers: { Authorization: `Bearer ${TOKEN}` } };
+
+export default function () {
+  const roll = Math.random();
+  let res;
+  if (roll < 0.7) {
+    res = http.get(`${BASE_URL}/bookings/available-slots?date=${DATE}`, params);
+  } else if (roll < 0.9) {
+    res = http.get(`${BASE_URL}/bookings/my-bookings`, params);
+  } else {
+    res = http.get(`${BASE_URL}/bookings/available-slots/range?from=${DATE}&to=${DATE}`, params);
+  }
+  check(res, { 'status is 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,72 @@
+#!/usr/bin/env bash
+# Time from JVM launch to the first answered request, for the plain jar, the jar with a
+# CDS (class data sharing) archive, and both again with Spring AOT.
+#
+#   ./mvnw -Paot -DskipTests package
+#   loadtest/time-to-first-request.sh [application arguments]
+#
+# Uses the database of application.properties unless the arguments override it. Every mode
+# is started RUNS times (default 5) and the median is printed. PROFILES (default
+# production) must match the profiles the jar was AOT-processed for, aot.profiles in the
+# pom. Without -Paot the AOT modes are skipped.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+RUNS=${RUNS:-5}
+PORT=${PORT:-8080}
+JAR=target/booking-backend-0.0.1-SNAPSHOT.jar
+WORK=target/startup
+APP_ARGS=(--spring.profiles.active="${PROFILES:-production}" --server.port="$PORT" "$@")
+
+# Prints the milliseconds from launch until the first request gets any HTTP response.
+first_request() {
+    local start pid
+    start=$(date +%s%N)
+    java "$@" "${APP_ARGS[@]}" >"$WORK/run.log" 2>&1 &
+    pid=$!
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' -X POST -H 'Content-Type: application/json' \
+            -d '{"username":"startup-probe","password":"x"}' "http://localhost:$PORT/api/auth/login")" != 000 ]; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "the application exited, see $WORK/run.log" >&2
+            return 1
+        fi
+        sleep 0.02
+    done
+    echo $(( ($(date +%s%N) - start) / 1000000 ))
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+}
+
+measure() {
+    local mode=$1 times=()
+    shift
+    for _ in $(seq "$RUNS"); do
+        times+=("$(first_request "$@")")
+    done
+    printf '%-8s median %5d ms   (%s)\n' "$mode" \
+        "$(printf '%s\n' "${times[@]}" | sort -n | awk '{ t[NR] = $1 } END { print t[int((NR + 1) / 2)] }')" \
+        "${times[*]}"
+}
+
+# A CDS archive holds the classes a training run loaded, which stops once the context is
+# refreshed. It only matches the extracted layout and the flags it was trained with.
+train() {
+    java -XX:ArchiveClassesAtExit="$WORK/$1" -Dspring.context.exit=onRefresh "${@:2}" -jar "$WORK/app.jar" \
+        "${APP_ARGS[@]}" >"$WORK/training.log" 2>&1
+}
+
+rm -rf "$WORK"
+java -Djarmode=tools -jar "$JAR" extract --destination "$WORK" >/dev/null
+mv "$WORK/$(basename "$JAR")" "$WORK/app.jar"
+aot=$(jar tf "$JAR" | grep -c '__ApplicationContextInitializer.class$' || true)
+
+train app.jsa
+measure jar -jar "$JAR"
+measure cds -XX:SharedArchiveFile="$WORK/app.jsa" -jar "$WORK/app.jar"
+if [ "$aot" -gt 0 ]; then
+    train app-aot.jsa -Dspring.aot.enabled=true
+    measure aot -Dspring.aot.enabled=true -jar "$JAR"
+    measure aot+cds -XX:SharedArchiveFile="$WORK/app-aot.jsa" -Dspring.aot.enabled=true -jar "$WORK/app.jar"
+else
+    echo "no AOT classes in $JAR; build it with -Paot to measure the AOT modes"
+fi
@@ -0,0 +1,51 @@
+package com.joyride.booking;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application against an embedded PostgreSQL, so benchmarks exercise the real
+ * repositories and schema while running offline. One instance per JMH trial.
+ */
+public class BenchmarkContext implements AutoCloseable {
+
+	private final EmbeddedPostgres postgres;
+	private final ConfigurableApplicationContext context;
+
+	/**
+	 * @param properties extra {@code name=value} settings for the application
+	 */
+	public BenchmarkContext(String... properties) throws IOException {
+		this.postgres = EmbeddedPostgres.start();
+		List<String> args = new ArrayList<>(List.of(
+				"--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+				"--spring.datasource.username=postgres",
+				"--spring.datasource.password=postgres",
+				"--spring.jpa.show-sql=false",
+				"--logging.level.root=WARN",
+				"--logging.level.org.hibernate.SQL=WARN",
+				"--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"));
+		for (String property : properties) {
+			args.add("--" + property);
+		}
+		this.context = new SpringApplicationBuilder(BookingBackendApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(args.toArray(String[]::new));
+	}
+
+	public <T> T getBean(Class<T> type) {
+		return context.getBean(type);
+	}
+
+	@Override
+	public void close() throws IOException {
+		context.close();
+		postgres.close();
+	}
+}
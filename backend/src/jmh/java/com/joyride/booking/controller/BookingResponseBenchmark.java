@@ -0,0 +1,52 @@
+package com.joyride.booking.controller;
+
+import com.joyride.booking.dto.BookingResponse;
+import com.joyride.booking.model.Booking;
+import com.joyride.booking.model.User;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping and JSON serialization of a single booking, as done for every
+ * element of the booking list endpoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingResponseBenchmark {
+
+	private BookingController controller;
+	private JsonMapper jsonMapper;
+	private Booking booking;
+
+	@Setup
+	public void setUp() {
+		controller = new BookingController(null, null, null, null, null, null);
+		jsonMapper = JsonMapper.builder().build();
+
+		User user = new User();
+		user.setId(1L);
+		user.setUsername("rider");
+		booking = new Booking();
+		booking.setId(42L);
+		booking.setUser(user);
+		booking.setBookingDateTime(LocalDateTime.of(2030, 1, 15, 17, 20));
+		booking.setNotes("First flight");
+	}
+
+	@Benchmark
+	public BookingResponse convertToResponse() {
+		return controller.convertToResponse(booking);
+	}
+
+	@Benchmark
+	public String convertAndSerialize() {
+		return jsonMapper.writeValueAsString(controller.convertToResponse(booking));
+	}
+}
@@ -0,0 +1,87 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.BenchmarkContext;
+import com.joyride.booking.dto.BulkAvailabilityRequest;
+import com.joyride.booking.model.User;
+import com.joyride.booking.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Booking and cancelling with the audit log switched off and on. Each of the threads
+ * books and cancels its own slot, so the two runs differ only in the two audit records
+ * per operation; their throughput and latency should match.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class BookingAuditLogBenchmark {
+
+	@Param({"false", "true"})
+	public boolean audit;
+
+	private BenchmarkContext context;
+	private BookingService bookingService;
+	private Path auditDirectory;
+	private LocalDate date;
+	private final AtomicInteger riders = new AtomicInteger();
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		auditDirectory = Files.createTempDirectory("booking-audit");
+		context = new BenchmarkContext("bookings.audit.enabled=" + audit, "bookings.audit.dir=" + auditDirectory);
+		bookingService = context.getBean(BookingService.class);
+		date = LocalDate.now().plusDays(7);
+
+		BulkAvailabilityRequest open = new BulkAvailabilityRequest();
+		open.setFrom(date);
+		open.setTo(date);
+		open.setAvailable(true);
+		context.getBean(AvailabilityService.class).setAvailability(open);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		context.close();
+		FileSystemUtils.deleteRecursively(auditDirectory);
+	}
+
+	@State(Scope.Thread)
+	public static class Rider {
+
+		private Long userId;
+		private LocalDateTime slot;
+
+		@Setup(Level.Trial)
+		public void setUp(BookingAuditLogBenchmark benchmark) {
+			int rider = benchmark.riders.getAndIncrement();
+			User user = new User();
+			user.setUsername("rider" + rider);
+			user.setEmail("rider" + rider + "@example.com");
+			user.setPassword("x");
+			userId = benchmark.context.getBean(UserRepository.class).save(user).getId();
+			SlotEngine slotEngine = benchmark.context.getBean(SlotEngine.class);
+			slot = LocalDateTime.of(benchmark.date,
+					slotEngine.schedule(slotEngine.resolve(null), benchmark.date).startTime(rider));
+		}
+	}
+
+	@Benchmark
+	public Long bookAndCancel(Rider rider) {
+		Long bookingId = bookingService.createBooking(rider.userId, null, rider.slot, null).getId();
+		bookingService.cancelBooking(bookingId, rider.userId);
+		return bookingId;
+	}
+}
@@ -0,0 +1,86 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.BenchmarkContext;
+import com.joyride.booking.dto.BulkAvailabilityRequest;
+import com.joyride.booking.model.User;
+import com.joyride.booking.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking hot paths against the full service stack and an embedded database. The
+ * benchmarked date is open and partly booked, so slot filtering has real work to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingServiceBenchmark {
+
+	private BenchmarkContext context;
+	private BookingService bookingService;
+	private SlotEngine slotEngine;
+	private long resourceId;
+	private LocalDate date;
+	private LocalDateTime freeSlot;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		context = new BenchmarkContext();
+		bookingService = context.getBean(BookingService.class);
+		slotEngine = context.getBean(SlotEngine.class);
+		resourceId = slotEngine.resolve(null);
+		date = LocalDate.now().plusDays(7);
+
+		BulkAvailabilityRequest open = new BulkAvailabilityRequest();
+		open.setFrom(date);
+		open.setTo(date.plusDays(29));
+		open.setAvailable(true);
+		context.getBean(AvailabilityService.class).setAvailability(open);
+
+		User user = new User();
+		user.setUsername("rider");
+		user.setEmail("rider@example.com");
+		user.setPassword("x");
+		Long userId = context.getBean(UserRepository.class).save(user).getId();
+		bookingService.createBooking(userId, null, date.atTime(6, 0), null);
+		bookingService.createBooking(userId, null, date.atTime(7, 0), null);
+		bookingService.createBooking(userId, null, date.atTime(17, 40), null);
+
+		freeSlot = date.atTime(LocalTime.of(18, 20));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		context.close();
+	}
+
+	@Benchmark
+	public int scheduleLookup() {
+		return slotEngine.schedule(resourceId, date).indexOf(freeSlot.toLocalTime());
+	}
+
+	@Benchmark
+	public int validateBookingDateTime() {
+		return bookingService.validateBookingDateTime(resourceId, freeSlot);
+	}
+
+	@Benchmark
+	public List<LocalDateTime> getAvailableSlots() {
+		return bookingService.getAvailableSlots(resourceId, date);
+	}
+
+	@Benchmark
+	public Map<LocalDate, List<LocalTime>> getAvailableSlotsForMonth() {
+		return bookingService.getAvailableSlots(resourceId, date, date.plusDays(29));
+	}
+}
@@ -0,0 +1,71 @@
+package com.joyride.booking.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens validated per second: the single-parse {@link JwtService#validateAndExtract}
+ * against the previous implementation, which rebuilt the key and parser and parsed the
+ * token three times for every {@code isTokenValid} call. Both variants of that check
+ * live here now that the filter only uses {@code validateAndExtract}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+	private static final String SECRET = "YourVerySecureSecretKeyThatIsAtLeast256BitsLongForHS256AlgorithmMakeItLong";
+
+	private JwtService jwtService;
+	private UserDetails user;
+	private String token;
+
+	@Setup
+	public void setUp() {
+		jwtService = new JwtService(SECRET, 86_400_000L);
+		user = User.withUsername("rider").password("x").roles("USER").build();
+		token = jwtService.generateToken(user);
+	}
+
+	@Benchmark
+	public TokenClaims validateAndExtract() {
+		return jwtService.validateAndExtract(token);
+	}
+
+	@Benchmark
+	public boolean isTokenValid() {
+		TokenClaims claims = jwtService.validateAndExtract(token);
+		return claims.getSubject().equals(user.getUsername()) && claims.getExpiresAt().after(new Date());
+	}
+
+	@Benchmark
+	public boolean legacyIsTokenValid() {
+		String username = legacyClaims(token).getSubject();
+		return username.equals(user.getUsername())
+				&& !legacyClaims(token).getExpiration().before(new Date());
+	}
+
+	@Benchmark
+	public String generateToken() {
+		return jwtService.generateToken(user);
+	}
+
+	/** The pre-refactoring parse path: new key and parser per call. */
+	private static Claims legacyClaims(String token) {
+		return Jwts.parserBuilder()
+				.setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+				.build()
+				.parseClaimsJws(token)
+				.getBody();
+	}
+}
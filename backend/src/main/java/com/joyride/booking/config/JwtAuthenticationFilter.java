@@ -1,30 +1,59 @@
 package com.joyride.booking.config;
 
+import com.joyride.booking.model.AuthenticatedUser;
+import com.joyride.booking.model.Role;
+import com.joyride.booking.model.User;
 import com.joyride.booking.service.JwtService;
+import com.joyride.booking.service.PrincipalCache;
+import com.joyride.booking.service.TokenClaims;
+import com.joyride.booking.service.TokenVersionRegistry;
+import com.joyride.booking.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.Nonnull;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * Authenticates bearer tokens. In stateless mode ({@code jwt.stateless=true}) the
+ * principal is built from the token's claims and only the token version is checked;
+ * otherwise the user is loaded (and cached) by username.
+ */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final UserService userService;
+    private final PrincipalCache principalCache;
+    private final TokenVersionRegistry tokenVersions;
+    private final MeterRegistry meterRegistry;
+    private final boolean stateless;
+    
+    public JwtAuthenticationFilter(
+            JwtService jwtService,
+            UserService userService,
+            PrincipalCache principalCache,
+            TokenVersionRegistry tokenVersions,
+            MeterRegistry meterRegistry,
+            @Value("${jwt.stateless:false}") boolean stateless) {
+        this.jwtService = jwtService;
+        this.userService = userService;
+        this.principalCache = principalCache;
+        this.tokenVersions = tokenVersions;
+        this.meterRegistry = meterRegistry;
+        this.stateless = stateless;
+    }
     
     @Override
     protected void doFilterInternal(
@@ -34,7 +63,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
         
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -43,26 +71,64 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         jwt = authHeader.substring(7);
         try {
-            username = jwtService.extractUsername(jwt);
-            
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                AuthenticatedUser principal = principalCache.getPrincipal(jwt);
+                
+                if (principal == null) {
+                    principal = verifyToken(jwt);
+                }
                 
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                if (principal != null) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
+                            principal,
                             null,
-                            userDetails.getAuthorities()
+                            principal.getAuthorities()
                     );
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
-                    log.debug("User authenticated: {}", username);
+                    log.debug("User authenticated: {}", principal.getUsername());
                 }
             }
         } catch (Exception e) {
+            recordFailure(e.getClass().getSimpleName());
             log.error("JWT authentication failed: {}", e.getMessage());
         }
         
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+    
+    private AuthenticatedUser verifyToken(String jwt) {
+        TokenClaims claims = jwtService.validateAndExtract(jwt);
+        String username = claims.getSubject();
+        if (username == null) {
+            return null;
+        }
+        
+        // Tokens issued before ids and roles were embedded fall back to the user lookup.
+        if (stateless && claims.getUserId() != null && claims.getRole() != null) {
+            if (!tokenVersions.isCurrent(claims.getUserId(), claims.getTokenVersion())) {
+                recordFailure("revoked");
+                log.debug("Rejected revoked token for: {}", username);
+                return null;
+            }
+            return new AuthenticatedUser(claims.getUserId(), username, Role.valueOf(claims.getRole()));
+        }
+        
+        AuthenticatedUser principal = principalCache.getUser(username);
+        if (principal == null) {
+            User user = userService.loadUserByUsername(username);
+            if (!user.isEnabled()) {
+                recordFailure("disabled");
+                return null;
+            }
+            principal = AuthenticatedUser.from(user);
+            principalCache.putUser(principal);
+        }
+        principalCache.putPrincipal(jwt, principal, claims.getExpiresAt());
+        return principal;
+    }
+    
+    private void recordFailure(String reason) {
+        meterRegistry.counter("security.jwt.failures", "reason", reason).increment();
+    }
+}
@@ -1,6 +1,10 @@
 package com.joyride.booking.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -11,6 +15,7 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -25,6 +30,7 @@ public class SecurityConfig {
     
     private final JwtAuthenticationFilter jwtAuthFilter;
     private final UserDetailsService userDetailsService;
+    private final UserDetailsPasswordService userDetailsPasswordService;
     
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -32,7 +38,12 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .cors(cors -> {})
             .authorizeHttpRequests(auth -> auth
+                // Completing a streamed response (e.g. slot events) re-dispatches a request
+                // that was authorized when it started; the JWT is not re-read for it.
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
+                .requestMatchers("/actuator/health/**", "/actuator/prometheus").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 .requestMatchers("/api/bookings/**").authenticated()
                 .anyRequest().authenticated()
@@ -40,16 +51,18 @@ public class SecurityConfig {
             .sessionManagement(session -> session
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             )
-            .authenticationProvider(authenticationProvider())
+            .authenticationProvider(authenticationProvider(null))
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
         
         return http.build();
     }
     
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        // Re-hashes the password on successful login when the configured cost changed
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService);
         return authProvider;
     }
     
@@ -59,7 +72,43 @@ public class SecurityConfig {
     }
     
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.bcrypt.strength:10}") int strength,
+                                           MeterRegistry meterRegistry) {
+        return new ConfiguredStrengthBCryptPasswordEncoder(strength, meterRegistry);
+    }
+    
+    /**
+     * Flags every hash that was not produced with the configured cost, in either
+     * direction, so lowering the cost also takes effect on the next login. Hashing and
+     * checking are timed, as they dominate the cost of sign-up and login.
+     */
+    private static class ConfiguredStrengthBCryptPasswordEncoder extends BCryptPasswordEncoder {
+        
+        private final String prefix;
+        private final Timer encodeTimer;
+        private final Timer matchesTimer;
+        
+        ConfiguredStrengthBCryptPasswordEncoder(int strength, MeterRegistry meterRegistry) {
+            super(strength);
+            this.prefix = String.format("$%02d$", strength);
+            this.encodeTimer = meterRegistry.timer("security.password.hash", "operation", "encode");
+            this.matchesTimer = meterRegistry.timer("security.password.hash", "operation", "matches");
+        }
+        
+        @Override
+        protected String encodeNonNullPassword(String rawPassword) {
+            return encodeTimer.record(() -> super.encodeNonNullPassword(rawPassword));
+        }
+        
+        @Override
+        protected boolean matchesNonNull(String rawPassword, String encodedPassword) {
+            return matchesTimer.record(() -> super.matchesNonNull(rawPassword, encodedPassword));
+        }
+        
+        @Override
+        protected boolean upgradeEncodingNonNull(String encodedPassword) {
+            // $2a$10$... -> "$10$" starts at index 3
+            return encodedPassword.length() > 7 && !encodedPassword.startsWith(prefix, 3);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.joyride.booking.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Refuses to start when virtual threads are requested on a JVM that has none. Spring
+ * Boot ignores {@code spring.threads.virtual.enabled} before Java 21, which would leave
+ * the small connection pool and high connection limits of the virtual-threads profile
+ * in front of the bounded platform thread pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+    
+    static final int MIN_JAVA_VERSION = 21;
+    
+    public VirtualThreadsConfig() {
+        requireVirtualThreads(Runtime.version().feature());
+    }
+    
+    static void requireVirtualThreads(int javaVersion) {
+        if (javaVersion < MIN_JAVA_VERSION) {
+            throw new IllegalStateException("spring.threads.virtual.enabled needs Java " + MIN_JAVA_VERSION
+                    + " or later, but this JVM is Java " + javaVersion);
+        }
+    }
+}
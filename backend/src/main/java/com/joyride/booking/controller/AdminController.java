@@ -1,20 +1,38 @@
 package com.joyride.booking.controller;
 
+import com.joyride.booking.dto.BookingFilter;
+import com.joyride.booking.dto.BookingPage;
 import com.joyride.booking.dto.BookingResponse;
+import com.joyride.booking.dto.BulkAvailabilityRequest;
+import com.joyride.booking.dto.BulkAvailabilityResponse;
+import com.joyride.booking.dto.ResourceRequest;
+import com.joyride.booking.dto.ResourceResponse;
 import com.joyride.booking.model.AdminAvailability;
+import com.joyride.booking.model.BookingAuditRecord;
 import com.joyride.booking.model.Booking;
 import com.joyride.booking.repository.AdminAvailabilityRepository;
+import com.joyride.booking.service.AvailabilityService;
+import com.joyride.booking.service.AvailabilityVersions;
+import com.joyride.booking.service.BookingAuditLog;
+import com.joyride.booking.service.BookingExportService;
 import com.joyride.booking.service.BookingService;
+import com.joyride.booking.service.ResourceService;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -24,7 +42,12 @@ import java.util.stream.Collectors;
 public class AdminController {
     
     private final AdminAvailabilityRepository availabilityRepository;
+    private final AvailabilityService availabilityService;
+    private final AvailabilityVersions availabilityVersions;
+    private final BookingAuditLog bookingAuditLog;
     private final BookingService bookingService;
+    private final BookingExportService bookingExportService;
+    private final ResourceService resourceService;
     
     @PostMapping("/availability")
     public ResponseEntity<AdminAvailability> setAvailability(
@@ -32,40 +55,114 @@ public class AdminController {
             @RequestParam boolean isAvailable) {
         log.info("Setting availability for date: {} to {}", date, isAvailable);
         
-        AdminAvailability availability = availabilityRepository
-                .findByAvailableDate(date)
-                .orElse(new AdminAvailability());
-        
-        availability.setAvailableDate(date);
-        availability.setAvailable(isAvailable);
-        
-        AdminAvailability saved = availabilityRepository.save(availability);
+        AdminAvailability saved = availabilityService.setAvailability(date, isAvailable);
         log.info("Availability set successfully for: {}", date);
         return ResponseEntity.ok(saved);
     }
     
+    @PostMapping("/availability/bulk")
+    public ResponseEntity<BulkAvailabilityResponse> setAvailabilityBulk(
+            @Valid @RequestBody BulkAvailabilityRequest request) {
+        try {
+            return ResponseEntity.ok(availabilityService.setAvailability(request));
+        } catch (IllegalArgumentException e) {
+            log.error("Bulk availability update failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/availability")
     public ResponseEntity<List<AdminAvailability>> getAvailability(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            WebRequest request,
+            HttpServletResponse response) {
+        String eTag = availabilityVersions.availabilityETag(startDate, endDate);
+        if (request.checkNotModified(eTag)) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, availabilityVersions.availabilityCacheControl().getHeaderValue());
+            return null;
+        }
         List<AdminAvailability> availability = availabilityRepository
                 .findByAvailableDateBetween(startDate, endDate);
-        return ResponseEntity.ok(availability);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(availabilityVersions.availabilityCacheControl())
+                .body(availability);
+    }
+    
+    @GetMapping("/resources")
+    public ResponseEntity<List<ResourceResponse>> getResources() {
+        return ResponseEntity.ok(resourceService.getResources());
+    }
+    
+    @PostMapping("/resources")
+    public ResponseEntity<ResourceResponse> createResource(@Valid @RequestBody ResourceRequest request) {
+        try {
+            return ResponseEntity.ok(resourceService.createResource(request));
+        } catch (IllegalArgumentException e) {
+            log.error("Resource creation failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @PutMapping("/resources/{id}")
+    public ResponseEntity<ResourceResponse> updateResource(
+            @PathVariable Long id,
+            @Valid @RequestBody ResourceRequest request) {
+        try {
+            return ResponseEntity.ok(resourceService.updateResource(id, request));
+        } catch (IllegalArgumentException e) {
+            log.error("Resource update failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping("/bookings")
     public ResponseEntity<List<BookingResponse>> getDailyBookings(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
-        List<Booking> bookings = bookingService.getAllBookingsForDate(date);
-        List<BookingResponse> response = bookings.stream()
-                .map(booking -> BookingResponse.builder()
-                        .id(booking.getId())
-                        .bookingDateTime(booking.getBookingDateTime())
-                        .status(booking.getStatus().name())
-                        .notes(booking.getNotes())
-                        .username(booking.getUser().getUsername())
-                        .build())
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(bookingService.getAllBookingsForDate(date));
+    }
+    
+    @GetMapping("/bookings/history")
+    public ResponseEntity<BookingPage> getBookingHistory(
+            @RequestParam(required = false) List<Booking.BookingStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        try {
+            return ResponseEntity.ok(bookingService.getBookingHistory(
+                    BookingFilter.of(status, from, to), cursor, size));
+        } catch (IllegalArgumentException e) {
+            log.error("Booking history lookup failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/bookings/{id}/audit")
+    public ResponseEntity<List<BookingAuditRecord>> getBookingAudit(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(bookingAuditLog.history(id, from, to));
+    }
+    
+    @GetMapping(value = "/bookings/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBookings(
+            @RequestParam(required = false) List<Booking.BookingStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        BookingFilter filter;
+        try {
+            filter = BookingFilter.of(status, from, to);
+        } catch (IllegalArgumentException e) {
+            log.error("Booking export failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> bookingExportService.export(filter, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"bookings.ndjson\"")
+                .body(body);
     }
 }
\ No newline at end of file
@@ -7,87 +7,123 @@ import com.joyride.booking.model.Role;
 import com.joyride.booking.model.User;
 import com.joyride.booking.repository.UserRepository;
 import com.joyride.booking.service.JwtService;
+import com.joyride.booking.service.PasswordHashingService;
 import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Registration and login. Password hashing runs on {@link PasswordHashingService}'s
+ * pool and the rest of the work on the application task executor, so neither ties
+ * up a servlet thread.
+ */
 @RestController
 @RequestMapping("/api/auth")
-@RequiredArgsConstructor
 @Slf4j
 public class AuthController {
     
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final Executor taskExecutor;
+    
+    public AuthController(
+            UserRepository userRepository,
+            PasswordHashingService passwordHashingService,
+            JwtService jwtService,
+            AuthenticationManager authenticationManager,
+            @Qualifier("applicationTaskExecutor") Executor taskExecutor) {
+        this.userRepository = userRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.jwtService = jwtService;
+        this.authenticationManager = authenticationManager;
+        this.taskExecutor = taskExecutor;
+    }
     
     @PostMapping("/register")
-    public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
+    public CompletableFuture<ResponseEntity<AuthResponse>> register(@Valid @RequestBody RegisterRequest request) {
         log.info("Registration attempt for username: {}", request.getUsername());
         
         if (userRepository.existsByUsername(request.getUsername())) {
             log.warn("Registration failed - username exists: {}", request.getUsername());
-            return ResponseEntity.badRequest().build();
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         }
         
         if (userRepository.existsByEmail(request.getEmail())) {
             log.warn("Registration failed - email exists: {}", request.getEmail());
-            return ResponseEntity.badRequest().build();
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         }
         
-        User user = new User();
-        user.setUsername(request.getUsername());
-        user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        user.setPhoneNumber(request.getPhoneNumber());
-        user.setRole(Role.USER);
-        
-        userRepository.save(user);
-        log.info("User registered successfully: {}", user.getUsername());
-        
-        String jwtToken = jwtService.generateToken(user);
-        
-        return ResponseEntity.ok(AuthResponse.builder()
-                .token(jwtToken)
-                .username(user.getUsername())
-                .email(user.getEmail())
-                .role(user.getRole().name())
-                .build());
+        try {
+            return passwordHashingService.encode(request.getPassword())
+                    .thenApplyAsync(encodedPassword -> {
+                        User user = new User();
+                        user.setUsername(request.getUsername());
+                        user.setEmail(request.getEmail());
+                        user.setPassword(encodedPassword);
+                        user.setPhoneNumber(request.getPhoneNumber());
+                        user.setRole(Role.USER);
+                        
+                        userRepository.save(user);
+                        log.info("User registered successfully: {}", user.getUsername());
+                        
+                        return ResponseEntity.ok(toAuthResponse(user));
+                    }, taskExecutor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Registration rejected, password hashing saturated: {}", request.getUsername());
+            return CompletableFuture.completedFuture(serviceUnavailable());
+        }
     }
     
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
         log.info("Login attempt for username: {}", request.getUsername());
         
         try {
-            authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            request.getUsername(),
-                            request.getPassword()
-                    )
-            );
-            
-            User user = userRepository.findByUsername(request.getUsername())
-                    .orElseThrow();
-            
-            String jwtToken = jwtService.generateToken(user);
-            log.info("User logged in successfully: {}", user.getUsername());
-            
-            return ResponseEntity.ok(AuthResponse.builder()
-                    .token(jwtToken)
-                    .username(user.getUsername())
-                    .email(user.getEmail())
-                    .role(user.getRole().name())
-                    .build());
-        } catch (Exception e) {
-            log.error("Login failed for username: {}", request.getUsername());
-            return ResponseEntity.status(401).build();
+            return passwordHashingService.submit(() -> authenticationManager.authenticate(
+                            new UsernamePasswordAuthenticationToken(
+                                    request.getUsername(),
+                                    request.getPassword()
+                            )
+                    ))
+                    .handleAsync((authentication, e) -> {
+                        if (e != null) {
+                            log.error("Login failed for username: {}", request.getUsername());
+                            return ResponseEntity.status(401).<AuthResponse>build();
+                        }
+                        User user = (User) authentication.getPrincipal();
+                        log.info("User logged in successfully: {}", user.getUsername());
+                        return ResponseEntity.ok(toAuthResponse(user));
+                    }, taskExecutor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Login rejected, password hashing saturated: {}", request.getUsername());
+            return CompletableFuture.completedFuture(serviceUnavailable());
         }
     }
-}
\ No newline at end of file
+    
+    private AuthResponse toAuthResponse(User user) {
+        return AuthResponse.builder()
+                .token(jwtService.generateToken(user))
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .role(user.getRole().name())
+                .build();
+    }
+    
+    private static ResponseEntity<AuthResponse> serviceUnavailable() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
+}
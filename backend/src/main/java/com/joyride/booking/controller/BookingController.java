@@ -1,22 +1,37 @@
 package com.joyride.booking.controller;
 
+import com.joyride.booking.dto.BookingFilter;
+import com.joyride.booking.dto.BookingPage;
 import com.joyride.booking.dto.BookingRequest;
 import com.joyride.booking.dto.BookingResponse;
+import com.joyride.booking.dto.ResourceResponse;
+import com.joyride.booking.model.AuthenticatedUser;
 import com.joyride.booking.model.Booking;
-import com.joyride.booking.model.User;
+import com.joyride.booking.service.AvailabilityVersions;
 import com.joyride.booking.service.BookingService;
+import com.joyride.booking.service.IdempotencyService;
+import com.joyride.booking.service.ResourceService;
+import com.joyride.booking.service.SlotEngine;
+import com.joyride.booking.service.SlotEventBroadcaster;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/bookings")
@@ -25,37 +40,88 @@ import java.util.stream.Collectors;
 public class BookingController {
     
     private final BookingService bookingService;
+    private final ResourceService resourceService;
+    private final SlotEngine slotEngine;
+    private final SlotEventBroadcaster slotEventBroadcaster;
+    private final AvailabilityVersions availabilityVersions;
+    private final IdempotencyService idempotencyService;
     
+    /**
+     * Books a slot. With an {@code Idempotency-Key} header, retries of a successful
+     * request return the original booking instead of being booked again.
+     */
     @PostMapping
     public ResponseEntity<BookingResponse> createBooking(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody BookingRequest request) {
         try {
-            Booking booking = bookingService.createBooking(
-                    user,
+            if (idempotencyKey == null) {
+                return ResponseEntity.ok(book(user, request));
+            }
+            return ResponseEntity.ok(idempotencyService.createOnce(
+                    user.getId(), idempotencyKey, request, () -> book(user, request)));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            log.error("Booking creation failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Puts the lowest free seat of a slot on hold while the user finishes booking it.
+     * The response carries {@code holdExpiresAt}; confirm before then or the seat is freed.
+     */
+    @PostMapping("/holds")
+    public ResponseEntity<BookingResponse> holdSlot(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @Valid @RequestBody BookingRequest request) {
+        try {
+            Booking held = bookingService.holdSlot(
+                    user.getId(),
+                    request.getResourceId(),
                     request.getBookingDateTime(),
                     request.getNotes()
             );
-            return ResponseEntity.ok(convertToResponse(booking));
+            return ResponseEntity.ok(convertToResponse(held));
         } catch (IllegalArgumentException | IllegalStateException e) {
-            log.error("Booking creation failed: {}", e.getMessage());
+            log.error("Slot hold failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @PostMapping("/{id}/confirm")
+    public ResponseEntity<BookingResponse> confirmHold(
+            @PathVariable Long id,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        try {
+            return ResponseEntity.ok(convertToResponse(bookingService.confirmHold(id, user.getId())));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            log.error("Hold confirmation failed: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
         }
     }
     
     @GetMapping("/my-bookings")
-    public ResponseEntity<List<BookingResponse>> getMyBookings(@AuthenticationPrincipal User user) {
-        List<Booking> bookings = bookingService.getUserBookings(user.getId());
-        List<BookingResponse> response = bookings.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+    public ResponseEntity<BookingPage> getMyBookings(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestParam(required = false) List<Booking.BookingStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(bookingService.getUserBookings(
+                    user.getId(), BookingFilter.of(status, from, to), cursor, size));
+        } catch (IllegalArgumentException e) {
+            log.error("Booking history lookup failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> cancelBooking(
             @PathVariable Long id,
-            @AuthenticationPrincipal User user) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
         try {
             bookingService.cancelBooking(id, user.getId());
             return ResponseEntity.noContent().build();
@@ -65,20 +131,103 @@ public class BookingController {
         }
     }
     
+    @GetMapping("/resources")
+    public ResponseEntity<List<ResourceResponse>> getResources() {
+        return ResponseEntity.ok(resourceService.getResources().stream()
+                .filter(ResourceResponse::isActive)
+                .toList());
+    }
+    
+    // The ETag is taken before the slots are read: a change in between can only make the
+    // tag older than the body, which costs a refetch but never serves stale slots.
     @GetMapping("/available-slots")
     public ResponseEntity<List<LocalDateTime>> getAvailableSlots(
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
-        List<LocalDateTime> slots = bookingService.getAvailableSlots(date);
-        return ResponseEntity.ok(slots);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) Long resourceId,
+            WebRequest request,
+            HttpServletResponse response) {
+        try {
+            long resource = slotEngine.resolve(resourceId);
+            String eTag = availabilityVersions.slotsETag(resource, slotEngine.scheduleVersion(resource), date, date);
+            if (request.checkNotModified(eTag)) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, availabilityVersions.slotsCacheControl().getHeaderValue());
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .cacheControl(availabilityVersions.slotsCacheControl())
+                    .body(bookingService.getAvailableSlots(resource, date));
+        } catch (IllegalArgumentException e) {
+            log.error("Available slots lookup failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/available-slots/range")
+    public ResponseEntity<Map<LocalDate, List<LocalTime>>> getAvailableSlotsRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long resourceId,
+            WebRequest request,
+            HttpServletResponse response) {
+        try {
+            long resource = slotEngine.resolve(resourceId);
+            String eTag = availabilityVersions.slotsETag(resource, slotEngine.scheduleVersion(resource), from, to);
+            if (request.checkNotModified(eTag)) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, availabilityVersions.slotsCacheControl().getHeaderValue());
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .cacheControl(availabilityVersions.slotsCacheControl())
+                    .body(bookingService.getAvailableSlots(resource, from, to));
+        } catch (IllegalArgumentException e) {
+            log.error("Available slots lookup failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Server-sent {@code slot-taken} and {@code slot-freed} events for a resource's slots
+     * on the dates in {@code [from, to]}, plus {@code waitlist-offer} events for the user.
+     * Subscribe before loading the slots, so no change falls in between.
+     */
+    @GetMapping(value = "/available-slots/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSlotEvents(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long resourceId) {
+        try {
+            return ResponseEntity.ok(slotEventBroadcaster.subscribe(resourceId, from, to, user.getId()));
+        } catch (IllegalArgumentException e) {
+            log.error("Slot event subscription failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            log.warn("Slot event subscription rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+    
+    private BookingResponse book(AuthenticatedUser user, BookingRequest request) {
+        Booking booking = bookingService.createBooking(
+                user.getId(),
+                request.getResourceId(),
+                request.getBookingDateTime(),
+                request.getNotes()
+        );
+        return convertToResponse(booking);
     }
     
-    private BookingResponse convertToResponse(Booking booking) {
+    BookingResponse convertToResponse(Booking booking) {
         return BookingResponse.builder()
                 .id(booking.getId())
                 .bookingDateTime(booking.getBookingDateTime())
                 .status(booking.getStatus().name())
                 .notes(booking.getNotes())
                 .username(booking.getUser().getUsername())
+                .resourceId(booking.getResource() != null ? booking.getResource().getId() : null)
+                .holdExpiresAt(booking.getHoldExpiresAt())
                 .build();
     }
 }
\ No newline at end of file
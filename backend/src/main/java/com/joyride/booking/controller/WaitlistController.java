@@ -0,0 +1,59 @@
+package com.joyride.booking.controller;
+
+import com.joyride.booking.dto.BookingRequest;
+import com.joyride.booking.dto.WaitlistEntryResponse;
+import com.joyride.booking.model.AuthenticatedUser;
+import com.joyride.booking.service.WaitlistService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Waiting for full slots. When a seat frees up, the first user in line gets a hold on
+ * it and a {@code waitlist-offer} event on their slot event stream; confirming the
+ * hold books it, letting it lapse passes the seat to the next in line.
+ */
+@RestController
+@RequestMapping("/api/bookings/waitlist")
+@RequiredArgsConstructor
+@Slf4j
+public class WaitlistController {
+    
+    private final WaitlistService waitlistService;
+    
+    @PostMapping
+    public ResponseEntity<WaitlistEntryResponse> joinWaitlist(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @Valid @RequestBody BookingRequest request) {
+        try {
+            return ResponseEntity.ok(waitlistService.join(
+                    user.getId(), request.getResourceId(), request.getBookingDateTime()));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            log.error("Joining waitlist failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping
+    public ResponseEntity<List<WaitlistEntryResponse>> getMyEntries(@AuthenticationPrincipal AuthenticatedUser user) {
+        return ResponseEntity.ok(waitlistService.getUserEntries(user.getId()));
+    }
+    
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> leaveWaitlist(
+            @PathVariable Long id,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        try {
+            waitlistService.leave(id, user.getId());
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            log.error("Leaving waitlist failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.joyride.booking.dto;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a page, in {@code (bookingDateTime, id)} order.
+ * Travels to clients as an opaque URL-safe token.
+ */
+@Value
+public class BookingCursor {
+    
+    LocalDateTime bookingDateTime;
+    Long id;
+    
+    public static BookingCursor after(BookingResponse booking) {
+        return new BookingCursor(booking.getBookingDateTime(), booking.getId());
+    }
+    
+    public String encode() {
+        String raw = bookingDateTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static BookingCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new BookingCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.joyride.booking.dto;
+
+import com.joyride.booking.model.Booking;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Status and date bounds for booking history queries. Open ends are filled in here
+ * so the repository queries never take nullable parameters.
+ */
+@Value
+public class BookingFilter {
+    
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+    
+    Set<Booking.BookingStatus> statuses;
+    LocalDateTime from;
+    LocalDateTime to;
+    
+    /**
+     * @param from first day included, or {@code null} for no lower bound
+     * @param to last day included, or {@code null} for no upper bound
+     */
+    public static BookingFilter of(Collection<Booking.BookingStatus> statuses, LocalDate from, LocalDate to) {
+        Set<Booking.BookingStatus> resolved = statuses == null || statuses.isEmpty()
+                ? EnumSet.allOf(Booking.BookingStatus.class)
+                : EnumSet.copyOf(statuses);
+        LocalDateTime start = from != null ? from.atStartOfDay() : EARLIEST;
+        LocalDateTime end = to != null ? to.plusDays(1).atStartOfDay() : LATEST;
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        return new BookingFilter(resolved, start, end);
+    }
+}
@@ -0,0 +1,12 @@
+package com.joyride.booking.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class BookingPage {
+    List<BookingResponse> items;
+    /** Token for the next page, {@code null} on the last one. */
+    String nextCursor;
+}
@@ -9,4 +9,6 @@ public class BookingRequest {
     @NotNull
     private LocalDateTime bookingDateTime;
     private String notes;
+    // Optional; the default resource is booked when absent.
+    private Long resourceId;
 }
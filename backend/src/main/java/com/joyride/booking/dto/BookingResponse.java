@@ -1,15 +1,32 @@
 package com.joyride.booking.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.joyride.booking.model.Booking;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Data
 @Builder
+@AllArgsConstructor
+@NoArgsConstructor
 public class BookingResponse {
     private Long id;
     private LocalDateTime bookingDateTime;
     private String status;
     private String notes;
     private String username;
+    private Long resourceId;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDateTime holdExpiresAt;
+    
+    /**
+     * Used by the JPQL constructor expressions in {@code BookingRepository}.
+     */
+    public BookingResponse(Long id, LocalDateTime bookingDateTime, Booking.BookingStatus status,
+                           String notes, String username, Long resourceId) {
+        this(id, bookingDateTime, status.name(), notes, username, resourceId, null);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.joyride.booking.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Set;
+
+@Data
+public class BulkAvailabilityRequest {
+    @NotNull
+    private LocalDate from;
+    
+    @NotNull
+    private LocalDate to;
+    
+    // Recurrence rule: only these days of the week within the range. Empty means every day.
+    private Set<DayOfWeek> daysOfWeek;
+    
+    private boolean available;
+}
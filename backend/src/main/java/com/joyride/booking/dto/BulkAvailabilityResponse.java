@@ -0,0 +1,11 @@
+package com.joyride.booking.dto;
+
+import lombok.Value;
+
+@Value
+public class BulkAvailabilityResponse {
+    /** Dates the request covered. */
+    int dates;
+    /** Rows inserted or switched to the requested state; dates already in that state are not counted. */
+    int changed;
+}
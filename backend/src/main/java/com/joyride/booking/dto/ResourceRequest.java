@@ -0,0 +1,23 @@
+package com.joyride.booking.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ResourceRequest {
+    @NotBlank
+    @Size(max = 100)
+    private String name;
+    
+    private boolean active = true;
+    
+    @NotNull
+    @Valid
+    private List<ScheduleWindowDto> windows = new ArrayList<>();
+}
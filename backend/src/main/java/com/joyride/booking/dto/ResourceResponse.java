@@ -0,0 +1,25 @@
+package com.joyride.booking.dto;
+
+import com.joyride.booking.model.BookableResource;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ResourceResponse {
+    private Long id;
+    private String name;
+    private boolean active;
+    private List<ScheduleWindowDto> windows;
+    
+    public static ResourceResponse from(BookableResource resource) {
+        return ResourceResponse.builder()
+                .id(resource.getId())
+                .name(resource.getName())
+                .active(resource.isActive())
+                .windows(resource.getWindows().stream().map(ScheduleWindowDto::from).toList())
+                .build();
+    }
+}
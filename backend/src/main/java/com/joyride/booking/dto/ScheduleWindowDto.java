@@ -0,0 +1,50 @@
+package com.joyride.booking.dto;
+
+import com.joyride.booking.model.ScheduleWindow;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+@Data
+public class ScheduleWindowDto {
+    // Null applies the window to every day of the week.
+    private DayOfWeek dayOfWeek;
+    
+    @NotNull
+    private LocalTime startTime;
+    
+    @NotNull
+    private LocalTime endTime;
+    
+    @Min(5)
+    @Max(24 * 60)
+    private int slotMinutes;
+    
+    @Min(1)
+    @Max(64)
+    private int capacity = 1;
+    
+    public static ScheduleWindowDto from(ScheduleWindow window) {
+        ScheduleWindowDto dto = new ScheduleWindowDto();
+        dto.setDayOfWeek(window.getDayOfWeek());
+        dto.setStartTime(window.getStartTime());
+        dto.setEndTime(window.getEndTime());
+        dto.setSlotMinutes(window.getSlotMinutes());
+        dto.setCapacity(window.getCapacity());
+        return dto;
+    }
+    
+    public ScheduleWindow toEntity() {
+        ScheduleWindow window = new ScheduleWindow();
+        window.setDayOfWeek(dayOfWeek);
+        window.setStartTime(startTime);
+        window.setEndTime(endTime);
+        window.setSlotMinutes(slotMinutes);
+        window.setCapacity(capacity);
+        return window;
+    }
+}
@@ -0,0 +1,15 @@
+package com.joyride.booking.dto;
+
+import lombok.Value;
+import java.time.LocalDateTime;
+
+/**
+ * Data of a {@code slot-taken} or {@code slot-freed} server-sent event: the slot whose
+ * occupancy changed and how many of its seats are still free afterwards.
+ */
+@Value
+public class SlotUpdate {
+    Long resourceId;
+    LocalDateTime slot;
+    int freeSeats;
+}
@@ -0,0 +1,15 @@
+package com.joyride.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class WaitlistEntryResponse {
+    private Long id;
+    private Long resourceId;
+    private LocalDateTime slotDateTime;
+    // 1 for the next user to be offered a seat.
+    private long position;
+}
@@ -0,0 +1,16 @@
+package com.joyride.booking.dto;
+
+import lombok.Value;
+import java.time.LocalDateTime;
+
+/**
+ * Sent to a waiting user as a {@code waitlist-offer} event: the held booking to confirm
+ * before {@code holdExpiresAt}.
+ */
+@Value
+public class WaitlistOffer {
+    Long bookingId;
+    Long resourceId;
+    LocalDateTime slot;
+    LocalDateTime holdExpiresAt;
+}
@@ -0,0 +1,14 @@
+package com.joyride.booking.event;
+
+import lombok.Value;
+import java.time.LocalDate;
+
+/**
+ * Published when admin availability is written for any date in {@code [from, to]}, so the
+ * in-memory availability calendar can re-read that range once the change is committed.
+ */
+@Value
+public class AvailabilityChangedEvent {
+    LocalDate from;
+    LocalDate to;
+}
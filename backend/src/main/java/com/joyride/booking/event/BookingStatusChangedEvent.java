@@ -0,0 +1,22 @@
+package com.joyride.booking.event;
+
+import com.joyride.booking.model.Booking;
+import lombok.Value;
+import java.time.LocalDateTime;
+
+/**
+ * Published by the booking service for every status a booking enters, starting with the
+ * one it is created in ({@code from} is then {@code null}). Listeners should bind to the
+ * transaction so they only record committed changes.
+ */
+@Value
+public class BookingStatusChangedEvent {
+    Long bookingId;
+    Long userId;
+    Long resourceId;
+    LocalDateTime slot;
+    int seat;
+    Booking.BookingStatus from;
+    Booking.BookingStatus to;
+    LocalDateTime changedAt;
+}
@@ -0,0 +1,14 @@
+package com.joyride.booking.event;
+
+import lombok.Value;
+import java.time.LocalDateTime;
+
+/**
+ * Published by the booking service when a slot is put on hold, so the hold can be
+ * expired on time. Listeners should bind to the transaction like for slot changes.
+ */
+@Value
+public class HoldPlacedEvent {
+    Long bookingId;
+    LocalDateTime expiresAt;
+}
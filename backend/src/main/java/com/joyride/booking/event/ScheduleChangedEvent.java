@@ -0,0 +1,13 @@
+package com.joyride.booking.event;
+
+import lombok.Value;
+
+/**
+ * Published when a resource or its schedule windows are created or changed, so compiled
+ * slot schedules can be rebuilt once the change is committed. A {@code null} resource id
+ * means any schedule may have changed.
+ */
+@Value
+public class ScheduleChangedEvent {
+    Long resourceId;
+}
@@ -0,0 +1,16 @@
+package com.joyride.booking.event;
+
+import lombok.Value;
+import java.time.LocalDateTime;
+
+/**
+ * Published by the booking service whenever a seat of a slot is taken or released.
+ * Listeners should bind to the transaction so they only observe committed changes.
+ */
+@Value
+public class SlotChangedEvent {
+    Long resourceId;
+    LocalDateTime slot;
+    int seat;
+    boolean occupied;
+}
@@ -0,0 +1,17 @@
+package com.joyride.booking.event;
+
+import lombok.Value;
+import java.time.LocalDateTime;
+
+/**
+ * Published when a waiting user is given a hold on a freed seat. Listeners should bind
+ * to the transaction so the user is only told about offers that committed.
+ */
+@Value
+public class WaitlistOfferedEvent {
+    Long userId;
+    Long bookingId;
+    Long resourceId;
+    LocalDateTime slot;
+    LocalDateTime holdExpiresAt;
+}
@@ -0,0 +1,26 @@
+package com.joyride.booking.model;
+
+import lombok.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+/**
+ * Lightweight security principal: just what controllers and authorization rules need,
+ * buildable from token claims without loading the {@link User} entity.
+ */
+@Value
+public class AuthenticatedUser {
+    Long id;
+    String username;
+    Role role;
+    
+    public List<GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+    
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getRole());
+    }
+}
@@ -0,0 +1,47 @@
+package com.joyride.booking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Something riders can book, such as a single vehicle. Its schedule is the set of
+ * {@link ScheduleWindow}s that produce its slots.
+ */
+@Entity
+@Table(name = "resources")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookableResource {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, unique = true)
+    private String name;
+    
+    @Column(nullable = false)
+    private boolean active = true;
+    
+    @OneToMany(mappedBy = "resource", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("startTime")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private List<ScheduleWindow> windows = new ArrayList<>();
+    
+    public void replaceWindows(List<ScheduleWindow> replacement) {
+        windows.clear();
+        replacement.forEach(window -> {
+            window.setResource(this);
+            windows.add(window);
+        });
+    }
+}
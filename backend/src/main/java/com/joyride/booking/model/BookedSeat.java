@@ -0,0 +1,14 @@
+package com.joyride.booking.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * A seat taken by a confirmed or held booking, as read by the slot occupancy index.
+ */
+@Value
+public class BookedSeat {
+    LocalDateTime bookingDateTime;
+    int seat;
+}
@@ -4,11 +4,19 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
 import java.time.LocalDateTime;
 
+// A seat of a slot may only hold one CONFIRMED or HELD booking. That is a partial unique
+// index (uk_bookings_active_seat), created by the migrations since JPA cannot express it.
+// The table is range-partitioned by month of booking_date_time (V2 migration), which is
+// why its primary key is (id, booking_date_time); ids still come from one sequence.
 @Entity
-@Table(name = "bookings", uniqueConstraints = {
-    @UniqueConstraint(columnNames = {"booking_date_time"})
+@Table(name = "bookings", indexes = {
+    @Index(name = "idx_bookings_status_date_time", columnList = "status, booking_date_time"),
+    @Index(name = "idx_bookings_date_time_id", columnList = "booking_date_time, id"),
+    @Index(name = "idx_bookings_user_date_time_id", columnList = "user_id, booking_date_time, id")
 })
 @Data
 @NoArgsConstructor
@@ -23,9 +31,19 @@ public class Booking {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     
+    // Nullable in the schema only so existing rows can be backfilled by the migrations.
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "resource_id")
+    private BookableResource resource;
+    
     @Column(name = "booking_date_time", nullable = false)
     private LocalDateTime bookingDateTime;
     
+    // Which of the slot's capacity this booking occupies, from 0.
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private int seat = 0;
+    
     @Column(nullable = false)
     private Integer durationMinutes = 20;
     
@@ -35,6 +53,9 @@ public class Booking {
     
     private String notes;
     
+    // Only set while HELD: the seat is released at this time unless the hold is confirmed.
+    private LocalDateTime holdExpiresAt;
+    
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
     
@@ -44,6 +65,7 @@ public class Booking {
     public enum BookingStatus {
         CONFIRMED,
         CANCELLED,
-        COMPLETED
+        COMPLETED,
+        HELD
     }
 }
\ No newline at end of file
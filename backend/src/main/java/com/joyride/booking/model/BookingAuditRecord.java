@@ -0,0 +1,23 @@
+package com.joyride.booking.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * One status change of a booking, as kept in the booking audit log. Statuses are stored by
+ * name; {@code fromStatus} is {@code null} for the status a booking was created in.
+ */
+@Value
+public class BookingAuditRecord {
+    LocalDateTime changedAt;
+    Long bookingId;
+    Long userId;
+    Long resourceId;
+    LocalDateTime slot;
+    int seat;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    String fromStatus;
+    String toStatus;
+}
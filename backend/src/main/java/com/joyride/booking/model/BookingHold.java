@@ -0,0 +1,14 @@
+package com.joyride.booking.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * A held booking and when its hold lapses, as read by the hold expiry scheduler.
+ */
+@Value
+public class BookingHold {
+    Long bookingId;
+    LocalDateTime expiresAt;
+}
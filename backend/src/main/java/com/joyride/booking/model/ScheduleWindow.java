@@ -0,0 +1,54 @@
+package com.joyride.booking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+/**
+ * A stretch of the day in which a resource takes bookings. Slots of {@code slotMinutes}
+ * start at {@code startTime} and keep starting while they begin before {@code endTime};
+ * each slot holds up to {@code capacity} bookings.
+ */
+@Entity
+@Table(name = "schedule_windows")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleWindow {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "resource_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private BookableResource resource;
+    
+    // Null means the window applies to every day of the week.
+    @Enumerated(EnumType.STRING)
+    private DayOfWeek dayOfWeek;
+    
+    @Column(nullable = false)
+    private LocalTime startTime;
+    
+    @Column(nullable = false)
+    private LocalTime endTime;
+    
+    @Column(nullable = false)
+    private int slotMinutes;
+    
+    @Column(nullable = false)
+    private int capacity = 1;
+    
+    public boolean appliesTo(DayOfWeek day) {
+        return dayOfWeek == null || dayOfWeek == day;
+    }
+}
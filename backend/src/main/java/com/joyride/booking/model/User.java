@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -13,6 +14,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserCacheEvictionListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -40,9 +42,35 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private boolean enabled = true;
     
+    // Bumped whenever issued tokens must stop working, see revokeTokens().
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private int tokenVersion = 0;
+    
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     private List<Booking> bookings;
     
+    public void setRole(Role role) {
+        if (this.role != role) {
+            revokeTokens();
+        }
+        this.role = role;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        if (this.enabled != enabled) {
+            revokeTokens();
+        }
+        this.enabled = enabled;
+    }
+    
+    /**
+     * Invalidates every token issued so far; they carry the previous version.
+     */
+    public void revokeTokens() {
+        tokenVersion++;
+    }
+    
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
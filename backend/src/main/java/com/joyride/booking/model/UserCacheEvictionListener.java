@@ -0,0 +1,62 @@
+package com.joyride.booking.model;
+
+import com.joyride.booking.service.PrincipalCache;
+import com.joyride.booking.service.TokenVersionRegistry;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps {@link PrincipalCache} and {@link TokenVersionRegistry} honest: any change to
+ * a user (role, enabled flag, password) drops the principals cached for them and
+ * publishes their current token version. The caches are looked up lazily so
+ * persistence-only contexts, such as repository tests, can still build the listener.
+ * <p>
+ * The caches only change once the transaction commits. A rolled-back update must not
+ * leave behind a token version the database never stored.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserCacheEvictionListener {
+    
+    private final ObjectProvider<PrincipalCache> principalCache;
+    private final ObjectProvider<TokenVersionRegistry> tokenVersions;
+    
+    @PostUpdate
+    public void evict(User user) {
+        String username = user.getUsername();
+        Long userId = user.getId();
+        int tokenVersion = user.getTokenVersion();
+        afterCommit(() -> {
+            principalCache.ifAvailable(cache -> cache.evictUser(username));
+            tokenVersions.ifAvailable(registry -> registry.update(userId, tokenVersion));
+        });
+    }
+    
+    @PostRemove
+    public void evictRemoved(User user) {
+        String username = user.getUsername();
+        Long userId = user.getId();
+        afterCommit(() -> {
+            principalCache.ifAvailable(cache -> cache.evictUser(username));
+            tokenVersions.ifAvailable(registry -> registry.evict(userId));
+        });
+    }
+    
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,42 @@
+package com.joyride.booking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user waiting for a seat of a full slot. Entries of a slot are served first come,
+ * first served; an entry is removed once its user has been offered a seat.
+ */
+@Entity
+@Table(name = "waitlist_entries",
+        uniqueConstraints = @UniqueConstraint(name = "uk_waitlist_user_slot",
+                columnNames = {"user_id", "resource_id", "slot_date_time"}),
+        indexes = @Index(name = "idx_waitlist_slot_created_id",
+                columnList = "resource_id, slot_date_time, created_at, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "resource_id", nullable = false)
+    private BookableResource resource;
+    
+    @Column(name = "slot_date_time", nullable = false)
+    private LocalDateTime slotDateTime;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,14 @@
+package com.joyride.booking.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * A slot of a resource that has users waiting for it.
+ */
+@Value
+public class WaitlistSlot {
+    Long resourceId;
+    LocalDateTime slot;
+}
@@ -0,0 +1,15 @@
+package com.joyride.booking.repository;
+
+import com.joyride.booking.model.BookableResource;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface BookableResourceRepository extends JpaRepository<BookableResource, Long> {
+    boolean existsByName(String name);
+    
+    @Query("SELECT DISTINCT r FROM BookableResource r LEFT JOIN FETCH r.windows ORDER BY r.id")
+    List<BookableResource> findAllWithWindows();
+}
@@ -1,24 +1,77 @@
 package com.joyride.booking.repository;
 
+import com.joyride.booking.dto.BookingResponse;
+import com.joyride.booking.model.BookedSeat;
 import com.joyride.booking.model.Booking;
+import com.joyride.booking.model.BookingHold;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    List<Booking> findByUserId(Long userId);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.id = :id")
+    Optional<Booking> findByIdForUpdate(Long id);
     
-    Optional<Booking> findByBookingDateTime(LocalDateTime dateTime);
+    @Query("SELECT new com.joyride.booking.model.BookedSeat(b.bookingDateTime, b.seat) FROM Booking b " +
+           "WHERE b.resource.id = :resourceId AND b.bookingDateTime >= :start AND b.bookingDateTime < :end " +
+           "AND b.status IN ('CONFIRMED', 'HELD')")
+    List<BookedSeat> findBookedSeats(Long resourceId, LocalDateTime start, LocalDateTime end);
     
-    @Query("SELECT b FROM Booking b WHERE b.bookingDateTime >= :start AND b.bookingDateTime < :end AND b.status = 'CONFIRMED'")
-    List<Booking> findBookingsByDateRange(LocalDateTime start, LocalDateTime end);
+    @Query("SELECT count(b) > 0 FROM Booking b WHERE b.resource.id = :resourceId AND b.bookingDateTime = :slot " +
+           "AND b.seat = :seat AND b.status IN ('CONFIRMED', 'HELD')")
+    boolean isSeatTaken(Long resourceId, LocalDateTime slot, int seat);
     
-    @Query("SELECT b FROM Booking b WHERE DATE(b.bookingDateTime) = DATE(:date) AND b.status = 'CONFIRMED'")
-    List<Booking> findConfirmedBookingsByDate(LocalDateTime date);
+    @Query("SELECT count(b) > 0 FROM Booking b WHERE b.user.id = :userId AND b.resource.id = :resourceId " +
+           "AND b.bookingDateTime = :slot AND b.status IN ('CONFIRMED', 'HELD')")
+    boolean holdsSeat(Long userId, Long resourceId, LocalDateTime slot);
     
-    boolean existsByBookingDateTimeAndStatus(LocalDateTime dateTime, Booking.BookingStatus status);
+    @Query("SELECT new com.joyride.booking.model.BookingHold(b.id, b.holdExpiresAt) FROM Booking b " +
+           "WHERE b.status = 'HELD'")
+    List<BookingHold> findHolds();
+    
+    // Served by the partial index idx_bookings_held_expiry, so the cost follows the number
+    // of expired holds rather than the size of the table.
+    @Query("SELECT new com.joyride.booking.model.BookingHold(b.id, b.holdExpiresAt) FROM Booking b " +
+           "WHERE b.status = 'HELD' AND b.holdExpiresAt <= :now ORDER BY b.holdExpiresAt")
+    List<BookingHold> findExpiredHolds(LocalDateTime now, Limit limit);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.id IN :ids AND b.status = 'HELD' AND b.holdExpiresAt <= :now")
+    List<Booking> findExpiredHoldsForUpdate(Collection<Long> ids, LocalDateTime now);
+    
+    // Keyset pages in (bookingDateTime, id) order. The row-value comparison lets PostgreSQL
+    // seek straight to the cursor in the index. The first page starts after (from, 0), which
+    // every row with bookingDateTime >= from satisfies since ids are positive. The plain lower
+    // bound repeats the cursor for partition pruning, which cannot use row values.
+    @Query("SELECT new com.joyride.booking.dto.BookingResponse(b.id, b.bookingDateTime, b.status, b.notes, u.username, b.resource.id) " +
+           "FROM Booking b JOIN b.user u " +
+           "WHERE u.id = :userId AND b.status IN :statuses AND b.bookingDateTime < :to " +
+           "AND b.bookingDateTime >= :afterDateTime AND (b.bookingDateTime, b.id) > (:afterDateTime, :afterId) " +
+           "ORDER BY b.bookingDateTime, b.id")
+    List<BookingResponse> findUserPage(Long userId, Collection<Booking.BookingStatus> statuses, LocalDateTime to,
+                                       LocalDateTime afterDateTime, Long afterId, Limit limit);
+    
+    @Query("SELECT new com.joyride.booking.dto.BookingResponse(b.id, b.bookingDateTime, b.status, b.notes, u.username, b.resource.id) " +
+           "FROM Booking b JOIN b.user u " +
+           "WHERE b.status IN :statuses AND b.bookingDateTime < :to " +
+           "AND b.bookingDateTime >= :afterDateTime AND (b.bookingDateTime, b.id) > (:afterDateTime, :afterId) " +
+           "ORDER BY b.bookingDateTime, b.id")
+    List<BookingResponse> findPage(Collection<Booking.BookingStatus> statuses, LocalDateTime to,
+                                   LocalDateTime afterDateTime, Long afterId, Limit limit);
+    
+    // The admin day view. Rides that are over have been moved to COMPLETED by the completion job.
+    @Query("SELECT new com.joyride.booking.dto.BookingResponse(b.id, b.bookingDateTime, b.status, b.notes, u.username, b.resource.id) " +
+           "FROM Booking b JOIN b.user u " +
+           "WHERE b.bookingDateTime >= :start AND b.bookingDateTime < :end AND b.status IN ('CONFIRMED', 'COMPLETED') " +
+           "ORDER BY b.bookingDateTime")
+    List<BookingResponse> findResponsesByDateRange(LocalDateTime start, LocalDateTime end);
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.joyride.booking.repository;
+
+import com.joyride.booking.dto.WaitlistEntryResponse;
+import com.joyride.booking.model.WaitlistEntry;
+import com.joyride.booking.model.WaitlistSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+    
+    // SKIP LOCKED lets concurrent promotions of the same slot each take a different waiter
+    // instead of queueing behind the first one's lock.
+    @Query(value = "SELECT * FROM waitlist_entries WHERE resource_id = :resourceId AND slot_date_time = :slot " +
+                   "ORDER BY created_at, id LIMIT 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<WaitlistEntry> findNextForUpdate(Long resourceId, LocalDateTime slot);
+    
+    // Position counts the entry itself, so the first in line is at position 1.
+    @Query("SELECT new com.joyride.booking.dto.WaitlistEntryResponse(w.id, w.resource.id, w.slotDateTime, " +
+           "(SELECT count(o) FROM WaitlistEntry o WHERE o.resource = w.resource AND o.slotDateTime = w.slotDateTime " +
+           "AND (o.createdAt, o.id) <= (w.createdAt, w.id))) " +
+           "FROM WaitlistEntry w WHERE w.user.id = :userId AND w.slotDateTime >= :from ORDER BY w.slotDateTime")
+    List<WaitlistEntryResponse> findResponsesByUser(Long userId, LocalDateTime from);
+    
+    @Query("SELECT DISTINCT new com.joyride.booking.model.WaitlistSlot(w.resource.id, w.slotDateTime) " +
+           "FROM WaitlistEntry w WHERE w.slotDateTime > :now")
+    List<WaitlistSlot> findWaitedSlots(LocalDateTime now);
+    
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.slotDateTime <= :now")
+    int deletePast(LocalDateTime now);
+}
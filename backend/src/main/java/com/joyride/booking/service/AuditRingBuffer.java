@@ -0,0 +1,84 @@
+package com.joyride.booking.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer. Producers claim a
+ * sequence number with one compare-and-set and publish into its slot; they never block
+ * and never wait for the consumer, but give up when the buffer is full.
+ * <p>
+ * The consumer takes slots in sequence order and stops at the first claimed slot whose
+ * item is not published yet, so items leave in the order their sequences were claimed.
+ */
+final class AuditRingBuffer<T> {
+    
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    // Next sequence to claim, shared by producers.
+    private final AtomicLong tail = new AtomicLong();
+    // Next sequence to take; written by the consumer only.
+    private volatile long head;
+    
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    AuditRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + (1 << 30));
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+    
+    /**
+     * @return {@code false} if the buffer is full and {@code item} was not added
+     */
+    boolean offer(T item) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head >= slots.length()) {
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        slots.setRelease((int) sequence & mask, item);
+        return true;
+    }
+    
+    /**
+     * Moves up to {@code max} items into {@code sink}. Must only be called by one thread.
+     *
+     * @return the number of items moved
+     */
+    int drainTo(List<T> sink, int max) {
+        long next = head;
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) next & mask;
+            T item = slots.getAcquire(index);
+            if (item == null) {
+                break;
+            }
+            // Cleared before head moves on, so a producer reusing the slot is never overwritten.
+            slots.setPlain(index, null);
+            sink.add(item);
+            next++;
+            drained++;
+        }
+        head = next;
+        return drained;
+    }
+    
+    /**
+     * @return items claimed but not yet drained
+     */
+    long size() {
+        return Math.max(0, tail.get() - head);
+    }
+}
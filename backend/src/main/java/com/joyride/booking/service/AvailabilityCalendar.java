@@ -0,0 +1,153 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.event.AvailabilityChangedEvent;
+import com.joyride.booking.model.AdminAvailability;
+import com.joyride.booking.repository.AdminAvailabilityRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Which dates the admin is available on, held as one bit per date from today over a
+ * rolling horizon. The calendar is loaded at startup, rolled forward on the first read
+ * of a new day and patched range by range as availability changes, so booking checks
+ * never hit the database. Dates outside the horizon fall back to a query.
+ */
+@Component
+@Slf4j
+public class AvailabilityCalendar {
+    
+    private final AdminAvailabilityRepository availabilityRepository;
+    private final int horizonDays;
+    private final Lock loadLock = new ReentrantLock();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    
+    public AvailabilityCalendar(AdminAvailabilityRepository availabilityRepository,
+                                @Value("${availability.calendar.horizon-days:400}") int horizonDays) {
+        this.availabilityRepository = availabilityRepository;
+        this.horizonDays = horizonDays;
+    }
+    
+    public boolean isOpen(LocalDate date) {
+        Snapshot current = snapshot(LocalDate.now());
+        int offset = current.offset(date);
+        if (offset < 0) {
+            return availabilityRepository.existsByAvailableDateAndIsAvailable(date, true);
+        }
+        return current.open().get(offset);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        snapshot(LocalDate.now());
+    }
+    
+    // Before the version counters move on, so a new ETag never labels old availability.
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        refresh(event.getFrom(), event.getTo());
+    }
+    
+    /**
+     * Re-reads the dates in {@code [from, to]} that fall within the horizon. The read
+     * happens outside any lock and is only published if no other refresh or load was
+     * published meanwhile; otherwise it is read again, so a slower read can never
+     * overwrite the result of a later one.
+     */
+    public void refresh(LocalDate from, LocalDate to) {
+        while (true) {
+            Snapshot current = snapshot.get();
+            if (current == null) {
+                return;
+            }
+            LocalDate last = current.start().plusDays(current.days() - 1L);
+            LocalDate start = from.isBefore(current.start()) ? current.start() : from;
+            LocalDate end = to.isAfter(last) ? last : to;
+            if (start.isAfter(end)) {
+                return;
+            }
+            
+            BitSet open = (BitSet) current.open().clone();
+            open.clear(current.offset(start), current.offset(end) + 1);
+            for (AdminAvailability availability : availabilityRepository.findByAvailableDateBetween(start, end)) {
+                if (availability.isAvailable()) {
+                    open.set(current.offset(availability.getAvailableDate()));
+                }
+            }
+            if (snapshot.compareAndSet(current, new Snapshot(current.start(), current.days(), open))) {
+                log.debug("Refreshed availability calendar from {} to {}", start, end);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Drops the calendar so the next read loads it again, for when changes may have been
+     * missed altogether.
+     */
+    public void invalidate() {
+        snapshot.set(null);
+    }
+    
+    // One thread loads a new day's calendar while the others wait. The lock is not a
+    // monitor, so waiting virtual threads do not pin their carriers.
+    private Snapshot snapshot(LocalDate today) {
+        Snapshot current = snapshot.get();
+        if (current != null && current.start().equals(today)) {
+            return current;
+        }
+        loadLock.lock();
+        try {
+            while (true) {
+                current = snapshot.get();
+                if (current != null && current.start().equals(today)) {
+                    return current;
+                }
+                Snapshot loaded = load(today);
+                if (snapshot.compareAndSet(current, loaded)) {
+                    return loaded;
+                }
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+    
+    private Snapshot load(LocalDate today) {
+        BitSet open = new BitSet(horizonDays);
+        int count = 0;
+        for (AdminAvailability availability : availabilityRepository
+                .findByAvailableDateBetween(today, today.plusDays(horizonDays - 1L))) {
+            if (availability.isAvailable()) {
+                open.set((int) ChronoUnit.DAYS.between(today, availability.getAvailableDate()));
+                count++;
+            }
+        }
+        log.info("Loaded availability calendar: {} open dates in the next {} days", count, horizonDays);
+        return new Snapshot(today, horizonDays, open);
+    }
+    
+    private record Snapshot(LocalDate start, int days, BitSet open) {
+        
+        /**
+         * @return the bit of {@code date}, or -1 if it lies outside the horizon
+         */
+        int offset(LocalDate date) {
+            long offset = ChronoUnit.DAYS.between(start, date);
+            return offset >= 0 && offset < days ? (int) offset : -1;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.event.AvailabilityChangedEvent;
+import com.joyride.booking.event.ScheduleChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+/**
+ * Keeps the availability calendars and compiled slot schedules of all backend instances
+ * in step through PostgreSQL LISTEN/NOTIFY. Writers send a notice inside their
+ * transaction, which PostgreSQL only delivers once it commits; every instance listens on
+ * a dedicated connection outside the pool and republishes the change locally as an
+ * {@link AvailabilityChangedEvent} or a {@link ScheduleChangedEvent}. Notices are not
+ * queued for a disconnected listener, so every (re)connect is announced as a change to
+ * all dates and all schedules.
+ */
+@Component
+@Slf4j
+public class AvailabilityNotifier implements SmartLifecycle {
+    
+    static final String CHANNEL = "availability_changed";
+    static final String SCHEDULE_CHANNEL = "schedule_changed";
+    
+    private static final int POLL_MILLIS = 10_000;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ConnectionFactory connectionFactory;
+    private final boolean enabled;
+    private final String instanceId = UUID.randomUUID().toString();
+    
+    private volatile boolean running;
+    private volatile Connection connection;
+    
+    @Autowired
+    public AvailabilityNotifier(JdbcTemplate jdbcTemplate,
+                                ApplicationEventPublisher eventPublisher,
+                                DataSourceProperties dataSourceProperties,
+                                @Value("${availability.notify.enabled:true}") boolean enabled) {
+        this(jdbcTemplate, eventPublisher, () -> DriverManager.getConnection(
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword()), enabled);
+    }
+    
+    AvailabilityNotifier(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher,
+                         ConnectionFactory connectionFactory, boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.connectionFactory = connectionFactory;
+        this.enabled = enabled;
+    }
+    
+    /**
+     * Tells other instances that availability in {@code [from, to]} changed. Call inside
+     * the writing transaction: the notice is sent on commit and discarded on rollback.
+     */
+    public void publish(LocalDate from, LocalDate to) {
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, instanceId + "|" + from + "|" + to);
+    }
+    
+    /**
+     * Tells other instances that the schedule of a resource changed, so they recompile
+     * their slot schedules. Call inside the writing transaction, as with {@link #publish}.
+     */
+    public void publishScheduleChange(long resourceId) {
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", SCHEDULE_CHANNEL, instanceId + "|" + resourceId);
+    }
+    
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        Thread listener = new Thread(this::listen, "availability-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        Connection current = connection;
+        if (current != null) {
+            // Closing the socket wakes the listener up from its wait for notifications.
+            try {
+                current.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    private void listen() {
+        long backoff = 1_000;
+        while (running) {
+            try (Connection current = connectionFactory.open()) {
+                connection = current;
+                try (Statement statement = current.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                    statement.execute("LISTEN " + SCHEDULE_CHANNEL);
+                }
+                eventPublisher.publishEvent(new AvailabilityChangedEvent(LocalDate.MIN, LocalDate.MAX));
+                eventPublisher.publishEvent(new ScheduleChangedEvent(null));
+                backoff = 1_000;
+                log.info("Listening for availability changes on channels {} and {}", CHANNEL, SCHEDULE_CHANNEL);
+                
+                PGConnection pgConnection = current.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            if (SCHEDULE_CHANNEL.equals(notification.getName())) {
+                                handleScheduleChange(notification.getParameter());
+                            } else {
+                                handle(notification.getParameter());
+                            }
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("Availability listener disconnected, retrying in {} ms: {}", backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            } finally {
+                connection = null;
+            }
+        }
+    }
+    
+    void handle(String payload) {
+        String[] parts = payload.split("\\|");
+        if (parts.length == 3 && parts[0].equals(instanceId)) {
+            return;
+        }
+        AvailabilityChangedEvent event;
+        try {
+            event = new AvailabilityChangedEvent(LocalDate.parse(parts[1]), LocalDate.parse(parts[2]));
+        } catch (ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+            log.warn("Unreadable availability notification '{}', treating it as a change to all dates", payload);
+            event = new AvailabilityChangedEvent(LocalDate.MIN, LocalDate.MAX);
+        }
+        eventPublisher.publishEvent(event);
+    }
+    
+    void handleScheduleChange(String payload) {
+        String[] parts = payload.split("\\|");
+        if (parts.length == 2 && parts[0].equals(instanceId)) {
+            return;
+        }
+        Long resourceId;
+        try {
+            resourceId = Long.valueOf(parts[1]);
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            log.warn("Unreadable schedule notification '{}', treating it as a change to all schedules", payload);
+            resourceId = null;
+        }
+        eventPublisher.publishEvent(new ScheduleChangedEvent(resourceId));
+    }
+    
+    @FunctionalInterface
+    interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+}
@@ -0,0 +1,110 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.dto.BulkAvailabilityRequest;
+import com.joyride.booking.dto.BulkAvailabilityResponse;
+import com.joyride.booking.event.AvailabilityChangedEvent;
+import com.joyride.booking.model.AdminAvailability;
+import com.joyride.booking.repository.AdminAvailabilityRepository;
+import io.micrometer.observation.annotation.Observed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Opens or closes dates. Many dates at once go through a batched upsert on
+ * {@code available_date} in JDBC rather than the repository: admin_availability uses
+ * identity ids, which stop Hibernate from batching inserts. Every write is announced to
+ * the availability calendar of this and all other instances.
+ */
+@Service
+@Observed(name = "availability.service")
+@Slf4j
+public class AvailabilityService {
+    
+    static final int MAX_RANGE_DAYS = 366;
+    
+    // Rows already in the requested state are left alone and report 0 affected rows.
+    private static final String UPSERT_SQL =
+            "INSERT INTO admin_availability (available_date, is_available) VALUES (?, ?) " +
+            "ON CONFLICT (available_date) DO UPDATE SET is_available = EXCLUDED.is_available " +
+            "WHERE admin_availability.is_available IS DISTINCT FROM EXCLUDED.is_available";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final AdminAvailabilityRepository availabilityRepository;
+    private final AvailabilityNotifier availabilityNotifier;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    
+    public AvailabilityService(JdbcTemplate jdbcTemplate,
+                               AdminAvailabilityRepository availabilityRepository,
+                               AvailabilityNotifier availabilityNotifier,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.availabilityRepository = availabilityRepository;
+        this.availabilityNotifier = availabilityNotifier;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+    
+    @Transactional
+    public AdminAvailability setAvailability(LocalDate date, boolean available) {
+        AdminAvailability availability = availabilityRepository
+                .findByAvailableDate(date)
+                .orElse(new AdminAvailability());
+        
+        availability.setAvailableDate(date);
+        availability.setAvailable(available);
+        
+        AdminAvailability saved = availabilityRepository.save(availability);
+        announce(date, date);
+        return saved;
+    }
+    
+    @Transactional
+    public BulkAvailabilityResponse setAvailability(BulkAvailabilityRequest request) {
+        List<LocalDate> dates = expand(request.getFrom(), request.getTo(), request.getDaysOfWeek());
+        int changed = Arrays.stream(jdbcTemplate.batchUpdate(UPSERT_SQL, dates, batchSize, (ps, date) -> {
+                    ps.setDate(1, Date.valueOf(date));
+                    ps.setBoolean(2, request.isAvailable());
+                }))
+                .flatMapToInt(Arrays::stream)
+                .sum();
+        log.info("Set availability to {} for {} dates between {} and {}, {} changed",
+                request.isAvailable(), dates.size(), request.getFrom(), request.getTo(), changed);
+        if (changed > 0) {
+            announce(request.getFrom(), request.getTo());
+        }
+        return new BulkAvailabilityResponse(dates.size(), changed);
+    }
+    
+    private void announce(LocalDate from, LocalDate to) {
+        availabilityNotifier.publish(from, to);
+        eventPublisher.publishEvent(new AvailabilityChangedEvent(from, to));
+    }
+    
+    static List<LocalDate> expand(LocalDate from, LocalDate to, Set<DayOfWeek> daysOfWeek) {
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range must cover 1 to " + MAX_RANGE_DAYS + " days");
+        }
+        List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            if (daysOfWeek == null || daysOfWeek.isEmpty() || daysOfWeek.contains(date.getDayOfWeek())) {
+                dates.add(date);
+            }
+        }
+        return dates;
+    }
+}
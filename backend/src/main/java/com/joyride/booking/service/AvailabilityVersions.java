@@ -0,0 +1,117 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.event.AvailabilityChangedEvent;
+import com.joyride.booking.event.ScheduleChangedEvent;
+import com.joyride.booking.event.SlotChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters for the dates whose slots or admin availability have changed, used
+ * to answer conditional GETs without touching the database. A version only ever grows,
+ * so the sum over a date range changes whenever anything in it does. ETags carry a
+ * random boot id, so versions restarting from zero can never match an old tag.
+ * <p>
+ * Listeners run after the calendar and occupancy index have applied a change, so a new
+ * version never labels old data. Counters follow the changes this instance sees: its own bookings, and availability
+ * and schedules written by any instance (relayed by {@link AvailabilityNotifier}).
+ */
+@Component
+public class AvailabilityVersions {
+    
+    // Wider changes bump everything at once rather than every date in them.
+    private static final int MAX_DATES_PER_CHANGE = 400;
+    
+    private final String bootId = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong epoch = new AtomicLong();
+    private final ConcurrentSkipListMap<LocalDate, Long> versions = new ConcurrentSkipListMap<>();
+    private final CacheControl slotsCacheControl;
+    
+    public AvailabilityVersions(@Value("${availability.http.max-age:5s}") Duration maxAge) {
+        this.slotsCacheControl = CacheControl.maxAge(maxAge).cachePublic().mustRevalidate();
+    }
+    
+    /**
+     * ETag for the free slots of a resource in {@code [from, to]}. Slot lists differ per
+     * resource, so the tag names the resource and the version of its schedule. Slots drop
+     * out as they start, so a range that reaches today or earlier also changes tag every
+     * minute.
+     */
+    public String slotsETag(long resourceId, long scheduleVersion, LocalDate from, LocalDate to) {
+        LocalDateTime now = LocalDateTime.now();
+        String tag = bootId + "-" + resourceId + "." + scheduleVersion + "-" + version(from, to);
+        if (from.isAfter(now.toLocalDate())) {
+            return quote(tag);
+        }
+        return quote(tag + "-" + now.truncatedTo(ChronoUnit.MINUTES).toEpochSecond(ZoneOffset.UTC) / 60);
+    }
+    
+    public String availabilityETag(LocalDate from, LocalDate to) {
+        return quote(bootId + "-" + version(from, to));
+    }
+    
+    /**
+     * Free slots are the same for every user, so shared caches may keep them briefly;
+     * after that they have to revalidate with the ETag.
+     */
+    public CacheControl slotsCacheControl() {
+        return slotsCacheControl;
+    }
+    
+    public CacheControl availabilityCacheControl() {
+        return CacheControl.noCache().cachePrivate();
+    }
+    
+    long version(LocalDate from, LocalDate to) {
+        long version = epoch.get();
+        for (long dateVersion : versions.subMap(from, true, to, true).values()) {
+            version += dateVersion;
+        }
+        return version;
+    }
+    
+    @TransactionalEventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onSlotChanged(SlotChangedEvent event) {
+        bump(event.getSlot().toLocalDate());
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        if (ChronoUnit.DAYS.between(event.getFrom(), event.getTo()) >= MAX_DATES_PER_CHANGE) {
+            epoch.incrementAndGet();
+            return;
+        }
+        for (LocalDate date = event.getFrom(); !date.isAfter(event.getTo()); date = date.plusDays(1)) {
+            bump(date);
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        epoch.incrementAndGet();
+    }
+    
+    private void bump(LocalDate date) {
+        versions.merge(date, 1L, Long::sum);
+    }
+    
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+}
@@ -0,0 +1,485 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.event.BookingStatusChangedEvent;
+import com.joyride.booking.model.BookingAuditRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of booking status changes, written behind the booking path.
+ * <p>
+ * Committed changes are put into a lock-free {@link AuditRingBuffer}, which costs the
+ * booking request one compare-and-set and no I/O. A single writer thread drains the
+ * buffer in batches, appends each batch to the current segment file and forces it to
+ * disk before taking the next. If the writer falls so far behind that the buffer fills
+ * up, further records are dropped and counted in {@code bookings.audit.dropped} rather
+ * than slowing bookings down.
+ * <p>
+ * Segments are named {@code bookings-<index>.log} and every record is framed with its
+ * length and CRC32, so {@link #replay} can read them back in order and stop cleanly at
+ * a record torn by a crash. The writer starts a new segment on startup, after a failed
+ * write and whenever the current one exceeds the segment size.
+ * <p>
+ * For every segment the log keeps the range of booking ids and change times it holds,
+ * so {@link #history} only reads the segments that can contain what was asked for. The
+ * ranges of closed segments are saved next to them as {@code bookings-<index>.idx} and
+ * loaded on startup; a segment whose index is missing or out of date is scanned once.
+ */
+@Component
+@Slf4j
+public class BookingAuditLog implements SmartLifecycle {
+    
+    private static final String SEGMENT_PREFIX = "bookings-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 16;
+    
+    private final boolean enabled;
+    private final Path directory;
+    private final long segmentBytes;
+    private final int batchSize;
+    private final Duration idleWait;
+    private final Duration retryDelay;
+    private final AuditRingBuffer<BookingAuditRecord> buffer;
+    private final Counter written;
+    private final Counter dropped;
+    private final Map<Path, SegmentSummary> summaries = new ConcurrentSkipListMap<>();
+    
+    private volatile Thread writer;
+    
+    // Owned by the writer thread.
+    private long nextSegment;
+    private FileChannel segment;
+    private Path segmentFile;
+    private long segmentSize;
+    private SegmentSummary segmentSummary;
+    private double droppedReported;
+    
+    public BookingAuditLog(MeterRegistry meterRegistry,
+                           @Value("${bookings.audit.enabled:true}") boolean enabled,
+                           @Value("${bookings.audit.dir:data/audit}") Path directory,
+                           @Value("${bookings.audit.segment-size:64MB}") DataSize segmentSize,
+                           @Value("${bookings.audit.buffer-size:65536}") int bufferSize,
+                           @Value("${bookings.audit.batch-size:1024}") int batchSize,
+                           @Value("${bookings.audit.idle-wait:10ms}") Duration idleWait,
+                           @Value("${bookings.audit.retry-delay:5s}") Duration retryDelay) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentBytes = segmentSize.toBytes();
+        this.batchSize = batchSize;
+        this.idleWait = idleWait;
+        this.retryDelay = retryDelay;
+        this.buffer = new AuditRingBuffer<>(bufferSize);
+        this.written = meterRegistry.counter("bookings.audit.written");
+        this.dropped = meterRegistry.counter("bookings.audit.dropped");
+        Gauge.builder("bookings.audit.backlog", buffer, AuditRingBuffer::size).register(meterRegistry);
+    }
+    
+    @TransactionalEventListener
+    public void onStatusChanged(BookingStatusChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        BookingAuditRecord record = new BookingAuditRecord(event.getChangedAt(), event.getBookingId(),
+                event.getUserId(), event.getResourceId(), event.getSlot(), event.getSeat(),
+                event.getFrom() == null ? null : event.getFrom().name(), event.getTo().name());
+        if (!buffer.offer(record)) {
+            dropped.increment();
+        }
+    }
+    
+    /**
+     * Status changes of one booking, oldest first. Only segments whose ranges overlap the
+     * booking and the window are read.
+     *
+     * @param from first change time to include, or {@code null} for no lower bound
+     * @param to   change time to stop before, or {@code null} for no upper bound
+     */
+    public List<BookingAuditRecord> history(Long bookingId, LocalDateTime from, LocalDateTime to) {
+        List<BookingAuditRecord> history = new ArrayList<>();
+        try {
+            for (Map.Entry<Path, SegmentSummary> entry : summaries.entrySet()) {
+                if (!entry.getValue().overlaps(bookingId, from, to)) {
+                    continue;
+                }
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(entry.getKey()))) {
+                    replaySegment(entry.getKey(), in, record -> {
+                        if (record.getBookingId().equals(bookingId)
+                                && (from == null || !record.getChangedAt().isBefore(from))
+                                && (to == null || record.getChangedAt().isBefore(to))) {
+                            history.add(record);
+                        }
+                    });
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Reading the booking audit log failed", e);
+        }
+        return history;
+    }
+    
+    /**
+     * Passes every record written so far to {@code consumer} in the order it was written.
+     * Records still in the buffer are not included.
+     */
+    public void replay(Consumer<BookingAuditRecord> consumer) throws IOException {
+        for (Path file : segments()) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+                replaySegment(file, in, consumer);
+            }
+        }
+    }
+    
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            List<Path> existing = segments();
+            for (Path file : existing) {
+                summaries.put(file, loadSummary(file));
+            }
+            nextSegment = existing.isEmpty() ? 0 : segmentIndex(existing.get(existing.size() - 1)) + 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open booking audit log in " + directory, e);
+        }
+        Thread thread = new Thread(this::writeBatches, "booking-audit-writer");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+        log.info("Writing booking audit log to {}", directory.toAbsolutePath());
+    }
+    
+    /**
+     * Lets the writer drain what is left in the buffer before it closes the segment.
+     */
+    @Override
+    public void stop() {
+        Thread thread = writer;
+        writer = null;
+        if (thread == null) {
+            return;
+        }
+        // Not interrupted: an interrupt during a write would close the channel under it.
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return writer != null;
+    }
+    
+    // Started before and stopped after the web server, so requests still being answered at
+    // shutdown are recorded.
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+    
+    private void writeBatches() {
+        List<BookingAuditRecord> batch = new ArrayList<>(batchSize);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(batchSize * 128);
+        while (true) {
+            boolean running = writer != null;
+            if (batch.isEmpty()) {
+                buffer.drainTo(batch, batchSize);
+            }
+            reportDropped();
+            if (batch.isEmpty()) {
+                if (!running) {
+                    break;
+                }
+                LockSupport.parkNanos(idleWait.toNanos());
+                continue;
+            }
+            try {
+                append(batch, bytes);
+                batch.clear();
+            } catch (IOException e) {
+                // The segment may end in a torn record now; later batches go to a new one.
+                closeSegment();
+                if (!running) {
+                    log.error("Writing {} audit records failed during shutdown, they are lost: {}",
+                            batch.size(), e.getMessage());
+                    break;
+                }
+                log.error("Writing {} audit records failed, retrying in {}: {}", batch.size(), retryDelay, e.getMessage());
+                LockSupport.parkNanos(retryDelay.toNanos());
+            }
+        }
+        closeSegment();
+    }
+    
+    private void append(List<BookingAuditRecord> batch, ByteArrayOutputStream bytes) throws IOException {
+        bytes.reset();
+        DataOutputStream out = new DataOutputStream(bytes);
+        FileChannel channel = currentSegment();
+        SegmentSummary summary = segmentSummary;
+        for (BookingAuditRecord record : batch) {
+            summary = summary.with(record);
+            byte[] payload = encode(record);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            out.writeInt(payload.length);
+            out.writeInt((int) crc.getValue());
+            out.write(payload);
+        }
+        
+        ByteBuffer data = ByteBuffer.wrap(bytes.toByteArray());
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+        channel.force(false);
+        written.increment(batch.size());
+        segmentSummary = summary;
+        summaries.put(segmentFile, summary);
+        
+        segmentSize += bytes.size();
+        if (segmentSize >= segmentBytes) {
+            closeSegment();
+        }
+    }
+    
+    private FileChannel currentSegment() throws IOException {
+        if (segment == null) {
+            Path file = directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, nextSegment++, SEGMENT_SUFFIX));
+            segment = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            segmentFile = file;
+            segmentSize = 0;
+            segmentSummary = SegmentSummary.EMPTY;
+            syncDirectory();
+        }
+        return segment;
+    }
+    
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.close();
+        } catch (IOException e) {
+            log.warn("Closing audit segment failed: {}", e.getMessage());
+        }
+        segment = null;
+        if (segmentSummary.records() > 0) {
+            writeSummary(segmentFile, segmentSummary);
+        }
+    }
+    
+    // Saved with the segment's size, so an index that no longer matches its segment is ignored.
+    private void writeSummary(Path file, SegmentSummary summary) {
+        Path target = indexFile(file);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeByte(FORMAT_VERSION);
+                out.writeLong(Files.size(file));
+                out.writeLong(summary.records());
+                out.writeLong(summary.minBookingId());
+                out.writeLong(summary.maxBookingId());
+                writeTime(out, summary.earliestChange());
+                writeTime(out, summary.latestChange());
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Writing audit index {} failed, the segment is scanned on the next start: {}",
+                    target.getFileName(), e.getMessage());
+        }
+    }
+    
+    private SegmentSummary loadSummary(Path file) throws IOException {
+        Path index = indexFile(file);
+        if (Files.exists(index)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(index)))) {
+                if (in.readUnsignedByte() == FORMAT_VERSION && in.readLong() == Files.size(file)) {
+                    return new SegmentSummary(in.readLong(), in.readLong(), in.readLong(), readTime(in), readTime(in));
+                }
+            } catch (IOException e) {
+                log.warn("Cannot read audit index {}: {}", index.getFileName(), e.getMessage());
+            }
+        }
+        SegmentSummary[] scanned = {SegmentSummary.EMPTY};
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            replaySegment(file, in, record -> scanned[0] = scanned[0].with(record));
+        }
+        if (scanned[0].records() > 0) {
+            writeSummary(file, scanned[0]);
+        }
+        return scanned[0];
+    }
+    
+    // Makes the new segment's directory entry durable; not every platform supports this.
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            log.debug("Cannot sync audit directory: {}", e.getMessage());
+        }
+    }
+    
+    private void reportDropped() {
+        double total = dropped.count();
+        if (total > droppedReported) {
+            log.warn("Booking audit buffer full, dropped {} records", (long) (total - droppedReported));
+            droppedReported = total;
+        }
+    }
+    
+    private List<Path> segments() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+    }
+    
+    private static Path indexFile(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+    
+    private static long segmentIndex(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+    
+    private static void replaySegment(Path file, InputStream in, Consumer<BookingAuditRecord> consumer)
+            throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        long offset = 0;
+        while (true) {
+            byte[] header = data.readNBytes(HEADER_BYTES);
+            if (header.length == 0) {
+                return;
+            }
+            int length = header.length == HEADER_BYTES ? ByteBuffer.wrap(header).getInt() : -1;
+            byte[] payload = length > 0 && length <= MAX_RECORD_BYTES ? data.readNBytes(length) : null;
+            if (payload == null || payload.length < length) {
+                log.warn("Audit segment {} ends in a torn record at offset {}", file.getFileName(), offset);
+                return;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != ByteBuffer.wrap(header).getInt(4)) {
+                log.warn("Audit segment {} has a corrupt record at offset {}", file.getFileName(), offset);
+                return;
+            }
+            consumer.accept(decode(payload));
+            offset += HEADER_BYTES + length;
+        }
+    }
+    
+    private static byte[] encode(BookingAuditRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(FORMAT_VERSION);
+        writeTime(out, record.getChangedAt());
+        out.writeLong(record.getBookingId());
+        out.writeLong(record.getUserId());
+        out.writeLong(record.getResourceId());
+        writeTime(out, record.getSlot());
+        out.writeInt(record.getSeat());
+        out.writeUTF(record.getFromStatus() == null ? "" : record.getFromStatus());
+        out.writeUTF(record.getToStatus());
+        return bytes.toByteArray();
+    }
+    
+    private static BookingAuditRecord decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported audit record version " + version);
+        }
+        LocalDateTime changedAt = readTime(in);
+        long bookingId = in.readLong();
+        long userId = in.readLong();
+        long resourceId = in.readLong();
+        LocalDateTime slot = readTime(in);
+        int seat = in.readInt();
+        String from = in.readUTF();
+        String to = in.readUTF();
+        return new BookingAuditRecord(changedAt, bookingId, userId, resourceId, slot, seat,
+                from.isEmpty() ? null : from, to);
+    }
+    
+    // Local date-times are stored as if they were UTC, so they read back unchanged.
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+    
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        long seconds = in.readLong();
+        return LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC);
+    }
+    
+    private record SegmentSummary(long records, long minBookingId, long maxBookingId,
+                                  LocalDateTime earliestChange, LocalDateTime latestChange) {
+        
+        static final SegmentSummary EMPTY = new SegmentSummary(0, Long.MAX_VALUE, Long.MIN_VALUE, null, null);
+        
+        SegmentSummary with(BookingAuditRecord record) {
+            LocalDateTime changedAt = record.getChangedAt();
+            return new SegmentSummary(records + 1,
+                    Math.min(minBookingId, record.getBookingId()),
+                    Math.max(maxBookingId, record.getBookingId()),
+                    earliestChange == null || changedAt.isBefore(earliestChange) ? changedAt : earliestChange,
+                    latestChange == null || changedAt.isAfter(latestChange) ? changedAt : latestChange);
+        }
+        
+        boolean overlaps(long bookingId, LocalDateTime from, LocalDateTime to) {
+            return records > 0 && bookingId >= minBookingId && bookingId <= maxBookingId
+                    && (from == null || !latestChange.isBefore(from))
+                    && (to == null || earliestChange.isBefore(to));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.event.BookingStatusChangedEvent;
+import com.joyride.booking.model.Booking;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Marks confirmed bookings as COMPLETED once their ride is over, so queries on confirmed
+ * bookings only see the live working set.
+ * <p>
+ * Bookings are completed in order of (booking_date_time, id), one bulk UPDATE of at most
+ * the batch size per transaction. Each transaction also moves the job's row in
+ * {@code job_checkpoints} past the last booking it completed, so the next chunk, a later
+ * run or another instance starts there instead of scanning from the beginning. The
+ * checkpoint row is locked for the chunk, so instances never complete the same bookings.
+ * The plain lower bound next to the row comparison, which partition pruning cannot use,
+ * and the UPDATE's join on the full primary key keep each chunk to the partitions it needs.
+ */
+@Component
+@Slf4j
+public class BookingCompletionJob {
+    
+    static final String JOB_NAME = "booking-completion";
+    
+    private static final String COMPLETE_CHUNK = """
+            WITH chunk AS (
+                SELECT id, booking_date_time FROM bookings
+                WHERE status = 'CONFIRMED' AND booking_date_time < ?
+                  AND booking_date_time >= ? AND (booking_date_time, id) > (?, ?)
+                ORDER BY booking_date_time, id
+                LIMIT ?
+                FOR UPDATE
+            )
+            UPDATE bookings b SET status = 'COMPLETED', updated_at = ?
+            FROM chunk WHERE b.id = chunk.id AND b.booking_date_time = chunk.booking_date_time
+            RETURNING b.id, b.user_id, b.resource_id, b.booking_date_time, b.seat""";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter completed;
+    private final int batchSize;
+    private final Duration grace;
+    
+    public BookingCompletionJob(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                ApplicationEventPublisher eventPublisher,
+                                MeterRegistry meterRegistry,
+                                @Value("${bookings.completion.batch-size:1000}") int batchSize,
+                                @Value("${bookings.completion.grace:1h}") Duration grace) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.completed = meterRegistry.counter("bookings.completed");
+        this.batchSize = batchSize;
+        this.grace = grace;
+    }
+    
+    /**
+     * Completes every confirmed booking that started more than the grace period ago.
+     *
+     * @return the number of bookings completed
+     */
+    @Scheduled(initialDelayString = "${bookings.completion.interval:15m}",
+            fixedDelayString = "${bookings.completion.interval:15m}")
+    public int completePastBookings() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(grace);
+        jdbcTemplate.update("INSERT INTO job_checkpoints (name, updated_at) VALUES (?, ?) "
+                + "ON CONFLICT (name) DO NOTHING", JOB_NAME, Timestamp.valueOf(LocalDateTime.now()));
+        int total = 0;
+        int chunk;
+        do {
+            chunk = transactionTemplate.execute(status -> completeChunk(cutoff));
+            total += chunk;
+        } while (chunk == batchSize);
+        if (total > 0) {
+            log.info("Completed {} past bookings", total);
+        }
+        return total;
+    }
+    
+    private int completeChunk(LocalDateTime cutoff) {
+        Checkpoint checkpoint = jdbcTemplate.queryForObject(
+                "SELECT position_time, position_id FROM job_checkpoints WHERE name = ? FOR UPDATE",
+                (rs, rowNum) -> new Checkpoint(rs.getTimestamp("position_time"), rs.getLong("position_id")), JOB_NAME);
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingStatusChangedEvent> changes = jdbcTemplate.query(COMPLETE_CHUNK,
+                (rs, rowNum) -> new BookingStatusChangedEvent(rs.getLong("id"), rs.getLong("user_id"),
+                        rs.getLong("resource_id"), rs.getTimestamp("booking_date_time").toLocalDateTime(),
+                        rs.getInt("seat"), Booking.BookingStatus.CONFIRMED, Booking.BookingStatus.COMPLETED, now),
+                Timestamp.valueOf(cutoff), checkpoint.time(), checkpoint.time(), checkpoint.id(), batchSize,
+                Timestamp.valueOf(now));
+        if (changes.isEmpty()) {
+            return 0;
+        }
+        
+        // RETURNING does not keep the chunk's order.
+        BookingStatusChangedEvent last = changes.stream()
+                .max(Comparator.comparing(BookingStatusChangedEvent::getSlot)
+                        .thenComparing(BookingStatusChangedEvent::getBookingId))
+                .orElseThrow();
+        jdbcTemplate.update("UPDATE job_checkpoints SET position_time = ?, position_id = ?, updated_at = ? WHERE name = ?",
+                Timestamp.valueOf(last.getSlot()), last.getBookingId(), Timestamp.valueOf(now), JOB_NAME);
+        changes.forEach(eventPublisher::publishEvent);
+        completed.increment(changes.size());
+        return changes.size();
+    }
+    
+    // Position of the last completed booking; a fresh checkpoint starts before every booking.
+    private record Checkpoint(Timestamp time, long id) {
+        
+        Checkpoint {
+            if (time == null) {
+                time = Timestamp.valueOf(LocalDateTime.of(1970, 1, 1, 0, 0));
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.joyride.booking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the monthly partitions of {@code bookings} in shape: partitions for the coming
+ * months are created ahead of time, so new bookings never land in the default partition,
+ * and partitions older than the retention are archived.
+ * <p>
+ * Archiving detaches the partition, so no query reads it any more, exports it as gzipped
+ * CSV into the archive directory and then drops it. The export is forced to disk and
+ * renamed into place before the drop; a partition left detached by a failure is picked
+ * up again on the next run.
+ */
+@Component
+@Slf4j
+public class BookingPartitionManager {
+    
+    private static final Pattern PARTITION = Pattern.compile("bookings_y(\\d{4})m(\\d{2})");
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final Path archiveDirectory;
+    private final Counter archived;
+    
+    public BookingPartitionManager(JdbcTemplate jdbcTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${bookings.partitions.months-ahead:12}") int monthsAhead,
+                                   @Value("${bookings.partitions.retention-months:24}") int retentionMonths,
+                                   @Value("${bookings.partitions.archive-dir:data/archive}") Path archiveDirectory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.archiveDirectory = archiveDirectory;
+        this.archived = meterRegistry.counter("bookings.partitions.archived");
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        createUpcomingPartitions();
+    }
+    
+    @Scheduled(initialDelayString = "${bookings.partitions.interval:1d}",
+            fixedDelayString = "${bookings.partitions.interval:1d}")
+    public void maintain() {
+        createUpcomingPartitions();
+        archiveExpiredPartitions();
+    }
+    
+    /**
+     * Creates the partitions of the current month and the configured number of months
+     * after it that do not exist yet.
+     *
+     * @return the number of partitions created
+     */
+    public int createUpcomingPartitions() {
+        YearMonth month = YearMonth.now();
+        int created = 0;
+        for (int i = 0; i <= monthsAhead; i++) {
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT create_booking_partition(?)",
+                    Boolean.class, month.plusMonths(i).atDay(1)))) {
+                created++;
+            }
+        }
+        if (created > 0) {
+            log.info("Created {} booking partitions", created);
+        }
+        return created;
+    }
+    
+    /**
+     * Archives every partition of a month more than the retention before the current one.
+     *
+     * @return the number of partitions archived
+     */
+    public int archiveExpiredPartitions() {
+        if (retentionMonths <= 0) {
+            return 0;
+        }
+        YearMonth oldestKept = YearMonth.now().minusMonths(retentionMonths);
+        // Detached partitions are included, in case an earlier run stopped half way.
+        List<String> partitions = jdbcTemplate.queryForList("SELECT relname FROM pg_class "
+                + "WHERE relkind = 'r' AND relnamespace = current_schema()::regnamespace "
+                + "AND relname LIKE 'bookings_y%' ORDER BY relname", String.class);
+        int count = 0;
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION.matcher(partition);
+            if (!matcher.matches()
+                    || !YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)))
+                    .isBefore(oldestKept)) {
+                continue;
+            }
+            try {
+                archive(partition);
+                count++;
+            } catch (DataAccessException | UncheckedIOException e) {
+                log.error("Archiving booking partition {} failed: {}", partition, e.getMessage());
+            }
+        }
+        return count;
+    }
+    
+    private void archive(String partition) {
+        Boolean attached = jdbcTemplate.queryForObject("SELECT relispartition FROM pg_class "
+                + "WHERE relname = ? AND relnamespace = current_schema()::regnamespace", Boolean.class, partition);
+        if (Boolean.TRUE.equals(attached)) {
+            jdbcTemplate.execute("ALTER TABLE bookings DETACH PARTITION " + partition);
+        }
+        long rows = export(partition);
+        jdbcTemplate.execute("DROP TABLE " + partition);
+        archived.increment();
+        log.info("Archived booking partition {} with {} bookings to {}", partition, rows, archiveDirectory);
+    }
+    
+    // Partition names come from the catalog and match PARTITION, so they are safe to inline.
+    private long export(String partition) {
+        Path target = archiveDirectory.resolve(partition + ".csv.gz");
+        Path temporary = archiveDirectory.resolve(partition + ".csv.gz.tmp");
+        try {
+            Files.createDirectories(archiveDirectory);
+            long rows;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 GZIPOutputStream out = new GZIPOutputStream(Channels.newOutputStream(channel))) {
+                rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+                    try {
+                        return connection.unwrap(PGConnection.class).getCopyAPI()
+                                .copyOut("COPY " + partition + " TO STDOUT WITH (FORMAT csv, HEADER)", out);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                out.finish();
+                channel.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Exporting " + partition + " to " + target + " failed", e);
+        }
+    }
+}
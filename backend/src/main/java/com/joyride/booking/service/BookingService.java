@@ -1,144 +1,375 @@
 package com.joyride.booking.service;
 
+import com.joyride.booking.dto.BookingCursor;
+import com.joyride.booking.dto.BookingFilter;
+import com.joyride.booking.dto.BookingPage;
+import com.joyride.booking.dto.BookingResponse;
+import com.joyride.booking.event.BookingStatusChangedEvent;
+import com.joyride.booking.event.HoldPlacedEvent;
+import com.joyride.booking.event.SlotChangedEvent;
 import com.joyride.booking.model.Booking;
-import com.joyride.booking.model.User;
-import com.joyride.booking.repository.AdminAvailabilityRepository;
+import com.joyride.booking.repository.BookableResourceRepository;
 import com.joyride.booking.repository.BookingRepository;
-import lombok.RequiredArgsConstructor;
+import com.joyride.booking.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.annotation.Observed;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
+@Observed(name = "bookings.service")
 public class BookingService {
     
     private final BookingRepository bookingRepository;
-    private final AdminAvailabilityRepository availabilityRepository;
+    private final AvailabilityCalendar availabilityCalendar;
+    private final UserRepository userRepository;
+    private final BookableResourceRepository resourceRepository;
+    private final SlotEngine slotEngine;
+    private final SlotOccupancyIndex slotOccupancyIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final Duration holdTtl;
     
-    private static final LocalTime MORNING_START = LocalTime.of(6, 0);
-    private static final LocalTime MORNING_END = LocalTime.of(7, 30);
-    private static final LocalTime EVENING_START = LocalTime.of(17, 0);
-    private static final LocalTime EVENING_END = LocalTime.of(18, 30);
-    private static final int SLOT_DURATION = 20;
+    static final int MAX_RANGE_DAYS = 62;
+    private static final int MAX_PAGE_SIZE = 100;
     
+    public BookingService(BookingRepository bookingRepository,
+                          AvailabilityCalendar availabilityCalendar,
+                          UserRepository userRepository,
+                          BookableResourceRepository resourceRepository,
+                          SlotEngine slotEngine,
+                          SlotOccupancyIndex slotOccupancyIndex,
+                          ApplicationEventPublisher eventPublisher,
+                          MeterRegistry meterRegistry,
+                          @Value("${bookings.hold.ttl:5m}") Duration holdTtl) {
+        this.bookingRepository = bookingRepository;
+        this.availabilityCalendar = availabilityCalendar;
+        this.userRepository = userRepository;
+        this.resourceRepository = resourceRepository;
+        this.slotEngine = slotEngine;
+        this.slotOccupancyIndex = slotOccupancyIndex;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.holdTtl = holdTtl;
+    }
+    
+    /**
+     * Books the lowest free seat of a slot.
+     *
+     * @param resourceId resource to book, or {@code null} for the default one
+     */
     @Transactional
-    public Booking createBooking(User user, LocalDateTime bookingDateTime, String notes) {
-        log.info("Creating booking for user: {} at {}", user.getUsername(), bookingDateTime);
-        
-        validateBookingDateTime(bookingDateTime);
+    public Booking createBooking(Long userId, Long resourceId, LocalDateTime bookingDateTime, String notes) {
+        log.info("Creating booking for user: {} on resource {} at {}", userId, resourceId, bookingDateTime);
+        return claim(userId, resourceId, bookingDateTime, notes, null);
+    }
+    
+    /**
+     * Holds the lowest free seat of a slot for the hold TTL. The seat counts as taken
+     * until the hold is confirmed, cancelled or expires.
+     *
+     * @param resourceId resource to hold, or {@code null} for the default one
+     */
+    @Transactional
+    public Booking holdSlot(Long userId, Long resourceId, LocalDateTime bookingDateTime, String notes) {
+        log.info("Holding slot for user: {} on resource {} at {}", userId, resourceId, bookingDateTime);
+        Booking held = claim(userId, resourceId, bookingDateTime, notes, LocalDateTime.now().plus(holdTtl));
+        eventPublisher.publishEvent(new HoldPlacedEvent(held.getId(), held.getHoldExpiresAt()));
+        return held;
+    }
+    
+    /**
+     * Turns a user's unexpired hold into a confirmed booking on the same seat.
+     */
+    @Transactional
+    public Booking confirmHold(Long bookingId, Long userId) {
+        log.info("Confirming hold: {} for user: {}", bookingId, userId);
+        Booking booking = bookingRepository.findByIdForUpdate(bookingId)
+                .orElseThrow(() -> new IllegalArgumentException("Booking not found"));
         
-        if (isSlotBooked(bookingDateTime)) {
-            log.warn("Slot already booked: {}", bookingDateTime);
-            throw new IllegalStateException("This time slot is already booked");
+        if (!booking.getUser().getId().equals(userId)) {
+            throw new IllegalStateException("You can only confirm your own holds");
+        }
+        if (booking.getStatus() != Booking.BookingStatus.HELD || !booking.getHoldExpiresAt().isAfter(LocalDateTime.now())) {
+            throw new IllegalStateException("This hold has expired");
         }
         
-        Booking booking = new Booking();
-        booking.setUser(user);
-        booking.setBookingDateTime(bookingDateTime);
-        booking.setNotes(notes);
         booking.setStatus(Booking.BookingStatus.CONFIRMED);
+        booking.setHoldExpiresAt(null);
+        booking.setUpdatedAt(LocalDateTime.now());
+        publishStatusChange(booking, Booking.BookingStatus.HELD);
+        log.info("Hold confirmed: {}", bookingId);
+        return booking;
+    }
+    
+    /**
+     * Releases the seats of those holds among {@code bookingIds} that have expired; holds
+     * confirmed or cancelled in the meantime are left alone.
+     *
+     * @return the number of holds released
+     */
+    @Transactional
+    public int expireHolds(Collection<Long> bookingIds) {
+        if (bookingIds.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> expired = bookingRepository.findExpiredHoldsForUpdate(bookingIds, now);
+        for (Booking booking : expired) {
+            booking.setStatus(Booking.BookingStatus.CANCELLED);
+            booking.setHoldExpiresAt(null);
+            booking.setUpdatedAt(now);
+            publishStatusChange(booking, Booking.BookingStatus.HELD);
+            eventPublisher.publishEvent(new SlotChangedEvent(
+                    booking.getResource().getId(), booking.getBookingDateTime(), booking.getSeat(), false));
+        }
+        if (!expired.isEmpty()) {
+            meterRegistry.counter("bookings.holds.expired").increment(expired.size());
+            log.info("Expired {} holds", expired.size());
+        }
+        return expired.size();
+    }
+    
+    // Takes the lowest free seat; a booking with holdExpiresAt set is HELD until then.
+    private Booking claim(Long userId, Long resourceId, LocalDateTime bookingDateTime, String notes,
+                          LocalDateTime holdExpiresAt) {
+        long resource = slotEngine.resolve(resourceId);
+        int slot = validateBookingDateTime(resource, bookingDateTime);
         
-        Booking saved = bookingRepository.save(booking);
-        log.info("Booking created successfully: {}", saved.getId());
-        return saved;
+        int seat = slotOccupancyIndex.tryClaim(resource, bookingDateTime);
+        // The index does not hear of bookings made through other instances. A failed insert
+        // would abort the transaction, so the seat is checked first; if it is taken, the
+        // day is read again and the next free seat tried once.
+        if (seat >= 0 && bookingRepository.isSeatTaken(resource, bookingDateTime, seat)) {
+            meterRegistry.counter("bookings.conflicts", "stage", "stale").increment();
+            slotOccupancyIndex.release(resource, bookingDateTime, seat);
+            slotOccupancyIndex.evict(resource, bookingDateTime.toLocalDate());
+            seat = slotOccupancyIndex.tryClaim(resource, bookingDateTime);
+            if (seat >= 0 && bookingRepository.isSeatTaken(resource, bookingDateTime, seat)) {
+                slotOccupancyIndex.release(resource, bookingDateTime, seat);
+                seat = -1;
+            }
+        }
+        if (seat < 0) {
+            meterRegistry.counter("bookings.conflicts", "stage", "claim").increment();
+            log.warn("Slot already booked: {} on resource {}", bookingDateTime, resource);
+            throw new IllegalStateException("This time slot is already booked");
+        }
+        
+        try {
+            Booking booking = new Booking();
+            booking.setUser(userRepository.getReferenceById(userId));
+            booking.setResource(resourceRepository.getReferenceById(resource));
+            booking.setBookingDateTime(bookingDateTime);
+            booking.setSeat(seat);
+            booking.setDurationMinutes(slotEngine.schedule(resource, bookingDateTime.toLocalDate()).durationMinutes(slot));
+            booking.setNotes(notes);
+            booking.setStatus(holdExpiresAt == null ? Booking.BookingStatus.CONFIRMED : Booking.BookingStatus.HELD);
+            booking.setHoldExpiresAt(holdExpiresAt);
+            
+            Booking saved = bookingRepository.saveAndFlush(booking);
+            eventPublisher.publishEvent(new SlotChangedEvent(resource, bookingDateTime, seat, true));
+            publishStatusChange(saved, null);
+            log.info("Booking created successfully: {}", saved.getId());
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            meterRegistry.counter("bookings.conflicts", "stage", "constraint").increment();
+            log.warn("Slot taken concurrently: {} on resource {}", bookingDateTime, resource);
+            slotOccupancyIndex.evict(resource, bookingDateTime.toLocalDate());
+            throw new IllegalStateException("This time slot is already booked");
+        } finally {
+            releaseClaimAfterCompletion(resource, bookingDateTime, seat);
+        }
+    }
+    
+    public BookingPage getUserBookings(Long userId, BookingFilter filter, String cursor, int size) {
+        BookingCursor after = startOf(filter, cursor);
+        validatePageSize(size);
+        return toPage(bookingRepository.findUserPage(userId, filter.getStatuses(), filter.getTo(),
+                after.getBookingDateTime(), after.getId(), Limit.of(size + 1)), size);
     }
     
-    public List<Booking> getUserBookings(Long userId) {
-        return bookingRepository.findByUserId(userId);
+    public BookingPage getBookingHistory(BookingFilter filter, String cursor, int size) {
+        BookingCursor after = startOf(filter, cursor);
+        validatePageSize(size);
+        return toPage(bookingRepository.findPage(filter.getStatuses(), filter.getTo(),
+                after.getBookingDateTime(), after.getId(), Limit.of(size + 1)), size);
     }
     
     @Transactional
     public void cancelBooking(Long bookingId, Long userId) {
         log.info("Cancelling booking: {} for user: {}", bookingId, userId);
-        Booking booking = bookingRepository.findById(bookingId)
+        Booking booking = bookingRepository.findByIdForUpdate(bookingId)
                 .orElseThrow(() -> new IllegalArgumentException("Booking not found"));
         
         if (!booking.getUser().getId().equals(userId)) {
             throw new IllegalStateException("You can only cancel your own bookings");
         }
+        // Cancelling twice, or after a hold expired, would announce a seat as freed that
+        // may already belong to someone else.
+        Booking.BookingStatus previous = booking.getStatus();
+        if (previous != Booking.BookingStatus.CONFIRMED && previous != Booking.BookingStatus.HELD) {
+            throw new IllegalStateException("Only confirmed or held bookings can be cancelled");
+        }
         
         booking.setStatus(Booking.BookingStatus.CANCELLED);
+        booking.setHoldExpiresAt(null);
         booking.setUpdatedAt(LocalDateTime.now());
         bookingRepository.save(booking);
+        publishStatusChange(booking, previous);
+        eventPublisher.publishEvent(new SlotChangedEvent(
+                booking.getResource().getId(), booking.getBookingDateTime(), booking.getSeat(), false));
         log.info("Booking cancelled successfully: {}", bookingId);
     }
     
-    public List<LocalDateTime> getAvailableSlots(LocalDate date) {
+    /**
+     * Slots of a resource on {@code date} that still have a free seat.
+     *
+     * @param resourceId resource to look at, or {@code null} for the default one
+     */
+    public List<LocalDateTime> getAvailableSlots(Long resourceId, LocalDate date) {
+        long resource = slotEngine.resolve(resourceId);
         if (!isAdminAvailable(date)) {
             log.info("Admin not available on: {}", date);
             return new ArrayList<>();
         }
         
-        List<LocalDateTime> allSlots = generateDailySlots(date);
-        List<Booking> bookedSlots = bookingRepository.findConfirmedBookingsByDate(date.atStartOfDay());
-        
-        bookedSlots.forEach(booking -> allSlots.remove(booking.getBookingDateTime()));
+        DayOccupancy occupancy = slotOccupancyIndex.occupancy(resource, date);
+        SlotSchedule schedule = occupancy.schedule();
         
         LocalDateTime now = LocalDateTime.now();
-        allSlots.removeIf(slot -> slot.isBefore(now));
-        
-        return allSlots;
+        List<LocalDateTime> slots = new ArrayList<>();
+        for (int i = 0; i < schedule.size(); i++) {
+            LocalDateTime slot = LocalDateTime.of(date, schedule.startTime(i));
+            if (!slot.isBefore(now) && !occupancy.isFull(i)) {
+                slots.add(slot);
+            }
+        }
+        return slots;
     }
     
-    private List<LocalDateTime> generateDailySlots(LocalDate date) {
-        List<LocalDateTime> slots = new ArrayList<>();
-        
-        LocalTime morningSlot = MORNING_START;
-        while (morningSlot.isBefore(MORNING_END)) {
-            slots.add(LocalDateTime.of(date, morningSlot));
-            morningSlot = morningSlot.plusMinutes(SLOT_DURATION);
+    /**
+     * Free slot times of a resource for every date in {@code [from, to]}, keyed by date.
+     * Bookings for the whole range are fetched at most once.
+     */
+    public Map<LocalDate, List<LocalTime>> getAvailableSlots(Long resourceId, LocalDate from, LocalDate to) {
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range must cover 1 to " + MAX_RANGE_DAYS + " days");
         }
+        long resource = slotEngine.resolve(resourceId);
         
-        LocalTime eveningSlot = EVENING_START;
-        while (eveningSlot.isBefore(EVENING_END)) {
-            slots.add(LocalDateTime.of(date, eveningSlot));
-            eveningSlot = eveningSlot.plusMinutes(SLOT_DURATION);
+        LocalDateTime now = LocalDateTime.now();
+        Map<LocalDate, DayOccupancy> occupied = null;
+        Map<LocalDate, List<LocalTime>> slotsByDate = new LinkedHashMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            List<LocalTime> free = new ArrayList<>();
+            // Past dates have no free slots, so skip them rather than look them up.
+            if (!date.isBefore(now.toLocalDate()) && isAdminAvailable(date)) {
+                if (occupied == null) {
+                    occupied = slotOccupancyIndex.occupancy(resource, from, to);
+                }
+                DayOccupancy occupancy = occupied.get(date);
+                SlotSchedule schedule = occupancy.schedule();
+                for (int i = 0; i < schedule.size(); i++) {
+                    LocalTime time = schedule.startTime(i);
+                    if (!LocalDateTime.of(date, time).isBefore(now) && !occupancy.isFull(i)) {
+                        free.add(time);
+                    }
+                }
+            }
+            slotsByDate.put(date, free);
         }
-        
-        return slots;
+        return slotsByDate;
+    }
+    
+    private static BookingCursor startOf(BookingFilter filter, String cursor) {
+        return cursor == null || cursor.isBlank()
+                ? new BookingCursor(filter.getFrom(), 0L)
+                : BookingCursor.decode(cursor);
+    }
+    
+    private static void validatePageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+    
+    // Rows are fetched with a limit of size + 1; the extra one only tells us another page exists.
+    private static BookingPage toPage(List<BookingResponse> rows, int size) {
+        if (rows.size() <= size) {
+            return new BookingPage(rows, null);
+        }
+        List<BookingResponse> items = rows.subList(0, size);
+        return new BookingPage(items, BookingCursor.after(items.get(size - 1)).encode());
     }
     
     private boolean isAdminAvailable(LocalDate date) {
-        return availabilityRepository.existsByAvailableDateAndIsAvailable(date, true);
+        return availabilityCalendar.isOpen(date);
+    }
+    
+    // Feeds the audit log, which records the change only once the transaction commits.
+    private void publishStatusChange(Booking booking, Booking.BookingStatus from) {
+        eventPublisher.publishEvent(new BookingStatusChangedEvent(booking.getId(), booking.getUser().getId(),
+                booking.getResource().getId(), booking.getBookingDateTime(), booking.getSeat(), from,
+                booking.getStatus(), booking.getUpdatedAt()));
     }
     
-    private boolean isSlotBooked(LocalDateTime dateTime) {
-        return bookingRepository.existsByBookingDateTimeAndStatus(dateTime, Booking.BookingStatus.CONFIRMED);
+    private void releaseClaimAfterCompletion(long resourceId, LocalDateTime slot, int seat) {
+        // Hold the claim until the index has seen the commit, otherwise a second request
+        // could slip in between the insert and the index update.
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            slotOccupancyIndex.release(resourceId, slot, seat);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                slotOccupancyIndex.release(resourceId, slot, seat);
+            }
+        });
     }
     
-    private void validateBookingDateTime(LocalDateTime dateTime) {
-        LocalTime time = dateTime.toLocalTime();
+    /**
+     * @return the index of the slot in the resource's schedule for that date
+     */
+    int validateBookingDateTime(long resourceId, LocalDateTime dateTime) {
         LocalDate date = dateTime.toLocalDate();
         
         if (!isAdminAvailable(date)) {
             throw new IllegalArgumentException("Admin is not available on this date");
         }
         
-        boolean isInMorningWindow = !time.isBefore(MORNING_START) && time.isBefore(MORNING_END);
-        boolean isInEveningWindow = !time.isBefore(EVENING_START) && time.isBefore(EVENING_END);
-        
-        if (!isInMorningWindow && !isInEveningWindow) {
-            throw new IllegalArgumentException("Booking time must be within operating hours");
-        }
-        
-        if (time.getMinute() % SLOT_DURATION != 0 || time.getSecond() != 0) {
-            throw new IllegalArgumentException("Invalid time slot. Slots must be at 20-minute intervals");
+        int slot = slotEngine.schedule(resourceId, date).indexOf(dateTime.toLocalTime());
+        if (slot < 0) {
+            throw new IllegalArgumentException("Booking time must be the start of a slot within operating hours");
         }
         
         if (dateTime.isBefore(LocalDateTime.now())) {
             throw new IllegalArgumentException("Cannot book slots in the past");
         }
+        return slot;
     }
     
-    public List<Booking> getAllBookingsForDate(LocalDate date) {
-        return bookingRepository.findConfirmedBookingsByDate(date.atStartOfDay());
+    public List<BookingResponse> getAllBookingsForDate(LocalDate date) {
+        return bookingRepository.findResponsesByDateRange(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
     }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.joyride.booking.service;
+
+/**
+ * Taken seats of every slot of one resource on one date, as a bitmask per slot
+ * ({@link SlotSchedule#MAX_CAPACITY} seats at most). Instances never change; updates
+ * produce a copy, so readers can use them without locking.
+ */
+public final class DayOccupancy {
+    
+    private final SlotSchedule schedule;
+    private final long[] seats;
+    
+    DayOccupancy(SlotSchedule schedule) {
+        this(schedule, new long[schedule.size()]);
+    }
+    
+    private DayOccupancy(SlotSchedule schedule, long[] seats) {
+        this.schedule = schedule;
+        this.seats = seats;
+    }
+    
+    /** The schedule the slot indexes of this instance refer to. */
+    public SlotSchedule schedule() {
+        return schedule;
+    }
+    
+    public int taken(int slot) {
+        return Long.bitCount(seats[slot]);
+    }
+    
+    public boolean isTaken(int slot, int seat) {
+        return (seats[slot] & (1L << seat)) != 0;
+    }
+    
+    public boolean isFull(int slot) {
+        return taken(slot) >= schedule.capacity(slot);
+    }
+    
+    DayOccupancy withSeat(int slot, int seat, boolean occupied) {
+        long[] updated = seats.clone();
+        updated[slot] = occupied ? updated[slot] | (1L << seat) : updated[slot] & ~(1L << seat);
+        return new DayOccupancy(schedule, updated);
+    }
+    
+    // Only for building a fresh instance before it is published.
+    void markTaken(int slot, int seat) {
+        seats[slot] |= 1L << seat;
+    }
+}
@@ -0,0 +1,133 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.event.HoldPlacedEvent;
+import com.joyride.booking.model.BookingHold;
+import com.joyride.booking.repository.BookingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Releases held slots when their hold lapses. Holds placed by this instance wait in a
+ * {@link DelayQueue}, which hands each one to a single worker thread the moment it is
+ * due, so expiry work grows with the number of expired holds and never scans bookings.
+ * <p>
+ * Holds placed before a restart are reloaded at startup. A slow sweep over the partial
+ * index of held bookings catches those whose instance went away before they expired.
+ */
+@Component
+@Slf4j
+public class HoldExpiryScheduler implements SmartLifecycle {
+    
+    private static final int MAX_BATCH = 500;
+    
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final Duration retryDelay;
+    private final DelayQueue<PendingExpiry> queue = new DelayQueue<>();
+    
+    private volatile Thread worker;
+    
+    public HoldExpiryScheduler(BookingService bookingService,
+                               BookingRepository bookingRepository,
+                               @Value("${bookings.hold.retry-delay:5s}") Duration retryDelay) {
+        this.bookingService = bookingService;
+        this.bookingRepository = bookingRepository;
+        this.retryDelay = retryDelay;
+    }
+    
+    @TransactionalEventListener
+    public void onHoldPlaced(HoldPlacedEvent event) {
+        queue.add(new PendingExpiry(event.getBookingId(), event.getExpiresAt()));
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadHolds() {
+        List<BookingHold> holds = bookingRepository.findHolds();
+        holds.forEach(hold -> queue.add(new PendingExpiry(hold.getBookingId(), hold.getExpiresAt())));
+        log.info("Scheduled expiry of {} existing holds", holds.size());
+    }
+    
+    @Scheduled(initialDelayString = "${bookings.hold.sweep-interval:1m}",
+            fixedDelayString = "${bookings.hold.sweep-interval:1m}")
+    public void sweep() {
+        List<BookingHold> expired;
+        do {
+            expired = bookingRepository.findExpiredHolds(LocalDateTime.now(), Limit.of(MAX_BATCH));
+            bookingService.expireHolds(expired.stream().map(BookingHold::getBookingId).toList());
+        } while (expired.size() == MAX_BATCH);
+    }
+    
+    int pending() {
+        return queue.size();
+    }
+    
+    @Override
+    public void start() {
+        Thread thread = new Thread(this::expireDueHolds, "hold-expiry");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+    
+    @Override
+    public void stop() {
+        Thread thread = worker;
+        worker = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return worker != null;
+    }
+    
+    private void expireDueHolds() {
+        List<PendingExpiry> due = new ArrayList<>();
+        while (worker != null) {
+            try {
+                due.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(due, MAX_BATCH - 1);
+            try {
+                bookingService.expireHolds(due.stream().map(PendingExpiry::bookingId).toList());
+            } catch (RuntimeException e) {
+                log.error("Expiring {} holds failed, retrying in {}: {}", due.size(), retryDelay, e.getMessage());
+                LocalDateTime retryAt = LocalDateTime.now().plus(retryDelay);
+                due.forEach(pending -> queue.add(new PendingExpiry(pending.bookingId, retryAt)));
+            }
+            due.clear();
+        }
+    }
+    
+    private record PendingExpiry(Long bookingId, LocalDateTime expiresAt) implements Delayed {
+        
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(LocalDateTime.now(), expiresAt));
+        }
+        
+        @Override
+        public int compareTo(Delayed other) {
+            return expiresAt.compareTo(((PendingExpiry) other).expiresAt);
+        }
+    }
+}
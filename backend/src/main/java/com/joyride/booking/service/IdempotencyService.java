@@ -0,0 +1,202 @@
+package com.joyride.booking.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.joyride.booking.dto.BookingRequest;
+import com.joyride.booking.dto.BookingResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a booking request at most once per {@code Idempotency-Key} and user, and answers
+ * retries with the response of the first successful attempt.
+ * <p>
+ * Outcomes live in a bounded in-memory cache backed by the {@code idempotency_keys}
+ * table. The key row is inserted in the same transaction as the booking, before it: a
+ * retry on another instance waits on that row and then reads the stored response, and a
+ * failed attempt rolls the row back with the booking, so the client may simply retry.
+ * Retries arriving while the first attempt still runs on this instance wait for it.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+    
+    public static final String HEADER = "Idempotency-Key";
+    static final int MAX_KEY_LENGTH = 100;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final Cache<String, Outcome> outcomes;
+    private final ConcurrentHashMap<String, Attempt> inFlight = new ConcurrentHashMap<>();
+    
+    public IdempotencyService(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              JsonMapper jsonMapper,
+                              @Value("${bookings.idempotency.cache-size:10000}") long cacheSize,
+                              @Value("${bookings.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${bookings.idempotency.wait-timeout:10s}") Duration waitTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.writer = jsonMapper.writerFor(BookingResponse.class);
+        this.reader = jsonMapper.readerFor(BookingResponse.class);
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.outcomes = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+    
+    /**
+     * Creates the booking with {@code create} unless this user already did so under
+     * {@code key}, in which case the original response is returned.
+     *
+     * @throws IllegalArgumentException if the key is malformed or was used for a different request
+     * @throws IllegalStateException if an earlier attempt with the key is still running
+     */
+    public BookingResponse createOnce(Long userId, String key, BookingRequest request,
+                                      Supplier<BookingResponse> create) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = userId + ":" + key;
+        String requestHash = fingerprint(request);
+        
+        Outcome cached = outcomes.getIfPresent(id);
+        if (cached != null) {
+            BookingResponse response = cached.replay(requestHash);
+            log.info("Replaying booking {} for idempotency key {}", response.getId(), id);
+            return response;
+        }
+        
+        Attempt attempt = new Attempt(requestHash, new CompletableFuture<>());
+        Attempt running = inFlight.putIfAbsent(id, attempt);
+        if (running != null) {
+            return await(id, running, requestHash);
+        }
+        try {
+            Outcome outcome = firstAttempt(id, requestHash, create);
+            outcomes.put(id, outcome);
+            attempt.result.complete(outcome.response);
+            return outcome.replay(requestHash);
+        } catch (RuntimeException e) {
+            attempt.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, attempt);
+        }
+    }
+    
+    /**
+     * Deletes stored outcomes older than the TTL; their keys may then be used again.
+     */
+    @Scheduled(initialDelayString = "${bookings.idempotency.purge-interval:1h}",
+            fixedDelayString = "${bookings.idempotency.purge-interval:1h}")
+    public void purgeExpired() {
+        int purged = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE created_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minus(ttl)));
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+    
+    private Outcome firstAttempt(String id, String requestHash, Supplier<BookingResponse> create) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            jdbcTemplate.update("DELETE FROM idempotency_keys WHERE id = ? AND created_at < ?",
+                    id, Timestamp.valueOf(now.minus(ttl)));
+            // Blocks while another transaction holds the key, then skips the row if that
+            // transaction committed.
+            int claimed = jdbcTemplate.update("INSERT INTO idempotency_keys (id, request_hash, created_at) "
+                    + "VALUES (?, ?, ?) ON CONFLICT (id) DO NOTHING", id, requestHash, Timestamp.valueOf(now));
+            if (claimed == 0) {
+                return stored(id);
+            }
+            BookingResponse response = create.get();
+            jdbcTemplate.update("UPDATE idempotency_keys SET response = ? WHERE id = ?",
+                    writer.writeValueAsString(response), id);
+            return new Outcome(requestHash, response);
+        });
+    }
+    
+    private Outcome stored(String id) {
+        List<Outcome> rows = jdbcTemplate.query("SELECT request_hash, response FROM idempotency_keys WHERE id = ?",
+                (rs, rowNum) -> new Outcome(rs.getString("request_hash"),
+                        reader.readValue(rs.getString("response"))), id);
+        if (rows.isEmpty()) {
+            throw new IllegalStateException("Idempotency key " + id + " vanished while it was being read");
+        }
+        log.info("Replaying booking {} for idempotency key {} from the database", rows.get(0).response.getId(), id);
+        return rows.get(0);
+    }
+    
+    private BookingResponse await(String id, Attempt running, String requestHash) {
+        if (!running.requestHash.equals(requestHash)) {
+            throw new IllegalArgumentException(HEADER + " was already used for a different request");
+        }
+        try {
+            return running.result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Booking attempt for " + id + " failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("A booking request with this " + HEADER + " is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for booking attempt " + id);
+        }
+    }
+    
+    private static String fingerprint(BookingRequest request) {
+        String canonical = request.getResourceId() + "|" + request.getBookingDateTime() + "|"
+                + Objects.toString(request.getNotes(), "");
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private record Attempt(String requestHash, CompletableFuture<BookingResponse> result) {
+    }
+    
+    private record Outcome(String requestHash, BookingResponse response) {
+        
+        BookingResponse replay(String requestHash) {
+            if (!this.requestHash.equals(requestHash)) {
+                throw new IllegalArgumentException(HEADER + " was already used for a different request");
+            }
+            return response;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.joyride.booking.service;
 
+import com.joyride.booking.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -12,30 +14,58 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
 
 @Service
 public class JwtService {
     
-    @Value("${jwt.secret}")
-    private String secretKey;
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLE_CLAIM = "role";
+    static final String TOKEN_VERSION_CLAIM = "ver";
     
-    @Value("${jwt.expiration}")
-    private Long jwtExpiration;
+    private final Long jwtExpiration;
+    private final Key signInKey;
+    private final JwtParser parser;
     
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    public JwtService(
+            @Value("${jwt.secret}") String secretKey,
+            @Value("${jwt.expiration}") Long jwtExpiration) {
+        this.jwtExpiration = jwtExpiration;
+        this.signInKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signInKey)
+                .build();
     }
     
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    /**
+     * Verifies the signature and expiry of a token and returns its claims, parsing it once.
+     * Invalid or expired tokens are rejected with a {@link io.jsonwebtoken.JwtException}.
+     */
+    public TokenClaims validateAndExtract(String token) {
+        Claims claims = extractAllClaims(token);
+        return new TokenClaims(
+                claims.getSubject(),
+                claims.getExpiration(),
+                claims.get(USER_ID_CLAIM, Long.class),
+                claims.get(ROLE_CLAIM, String.class),
+                claims.get(TOKEN_VERSION_CLAIM, Integer.class));
     }
     
     public String generateToken(UserDetails userDetails) {
         return generateToken(new HashMap<>(), userDetails);
     }
     
+    /**
+     * Issues a token that carries the user's id, role and token version, enough to
+     * authenticate later requests without loading the user.
+     */
+    public String generateToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(USER_ID_CLAIM, user.getId());
+        claims.put(ROLE_CLAIM, user.getRole().name());
+        claims.put(TOKEN_VERSION_CLAIM, user.getTokenVersion());
+        return generateToken(claims, user);
+    }
+    
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
         return buildToken(extraClaims, userDetails, jwtExpiration);
     }
@@ -46,33 +76,13 @@ public class JwtService {
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
     
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
-    
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-    
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-    
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
+        return parser
                 .parseClaimsJws(token)
                 .getBody();
     }
-    
-    private Key getSignInKey() {
-        byte[] keyBytes = secretKey.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,61 @@
+package com.joyride.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt work off the request threads, on a pool sized to the CPU.
+ * <p>
+ * The queue is bounded: when it is full, {@link #submit} throws
+ * {@link RejectedExecutionException} right away instead of letting sign-up bursts pile
+ * up, and callers answer 503.
+ */
+@Service
+@Slf4j
+public class PasswordHashingService implements DisposableBean {
+    
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    
+    public PasswordHashingService(
+            PasswordEncoder passwordEncoder,
+            @Value("${security.password-hashing.threads:0}") int threads,
+            @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.passwordEncoder = passwordEncoder;
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("Password hashing pool: {} threads, queue capacity {}", poolSize, queueCapacity);
+    }
+    
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+    
+    /**
+     * Runs a task that is dominated by password hashing, such as an authentication attempt.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+    
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,101 @@
+package com.joyride.booking.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.joyride.booking.model.AuthenticatedUser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Bounded, time-limited cache of authenticated principals.
+ * <p>
+ * Verified tokens are keyed by their SHA-256 hash and live until the token expires or
+ * the TTL passes, whichever comes first. User details are cached separately by username
+ * so a fresh token for a known user does not need a database lookup either.
+ */
+@Component
+@Slf4j
+public class PrincipalCache {
+    
+    private final Cache<String, CachedPrincipal> principals;
+    private final Cache<String, AuthenticatedUser> users;
+    
+    public PrincipalCache(
+            @Value("${jwt.principal-cache.max-size:10000}") long maxSize,
+            @Value("${jwt.principal-cache.ttl:5m}") Duration ttl) {
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(ttl))
+                .build();
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+    
+    public AuthenticatedUser getPrincipal(String token) {
+        CachedPrincipal cached = principals.getIfPresent(hash(token));
+        return cached != null ? cached.principal : null;
+    }
+    
+    public void putPrincipal(String token, AuthenticatedUser principal, Date expiresAt) {
+        principals.put(hash(token), new CachedPrincipal(principal, expiresAt.getTime()));
+    }
+    
+    public AuthenticatedUser getUser(String username) {
+        return users.getIfPresent(username);
+    }
+    
+    public void putUser(AuthenticatedUser principal) {
+        users.put(principal.getUsername(), principal);
+    }
+    
+    /**
+     * Drops everything cached for a user, e.g. after their role or enabled flag changed.
+     */
+    public void evictUser(String username) {
+        users.invalidate(username);
+        principals.asMap().values().removeIf(cached -> cached.principal.getUsername().equals(username));
+        log.debug("Evicted cached principals for: {}", username);
+    }
+    
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private record CachedPrincipal(AuthenticatedUser principal, long expiresAtMillis) {
+    }
+    
+    private record TokenExpiry(Duration ttl) implements Expiry<String, CachedPrincipal> {
+        
+        @Override
+        public long expireAfterCreate(String key, CachedPrincipal value, long currentTime) {
+            long untilTokenExpiry = Duration.ofMillis(value.expiresAtMillis - System.currentTimeMillis()).toNanos();
+            return Math.max(0, Math.min(ttl.toNanos(), untilTokenExpiry));
+        }
+        
+        @Override
+        public long expireAfterUpdate(String key, CachedPrincipal value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+        
+        @Override
+        public long expireAfterRead(String key, CachedPrincipal value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
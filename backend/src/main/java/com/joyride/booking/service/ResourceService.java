@@ -0,0 +1,102 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.dto.ResourceRequest;
+import com.joyride.booking.dto.ResourceResponse;
+import com.joyride.booking.dto.ScheduleWindowDto;
+import com.joyride.booking.event.ScheduleChangedEvent;
+import com.joyride.booking.model.BookableResource;
+import com.joyride.booking.model.ScheduleWindow;
+import com.joyride.booking.repository.BookableResourceRepository;
+import io.micrometer.observation.annotation.Observed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.util.Comparator;
+import java.util.List;
+
+@Service
+@Observed(name = "resources.service")
+@RequiredArgsConstructor
+@Slf4j
+public class ResourceService {
+    
+    private final BookableResourceRepository resourceRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AvailabilityNotifier availabilityNotifier;
+    
+    @Transactional(readOnly = true)
+    public List<ResourceResponse> getResources() {
+        return resourceRepository.findAllWithWindows().stream()
+                .map(ResourceResponse::from)
+                .toList();
+    }
+    
+    @Transactional
+    public ResourceResponse createResource(ResourceRequest request) {
+        if (resourceRepository.existsByName(request.getName())) {
+            throw new IllegalArgumentException("A resource with this name already exists");
+        }
+        BookableResource resource = new BookableResource();
+        apply(resource, request);
+        BookableResource saved = resourceRepository.save(resource);
+        log.info("Created resource {} ({})", saved.getId(), saved.getName());
+        eventPublisher.publishEvent(new ScheduleChangedEvent(saved.getId()));
+        availabilityNotifier.publishScheduleChange(saved.getId());
+        return ResourceResponse.from(saved);
+    }
+    
+    /**
+     * Replaces the name, state and every schedule window of a resource. Existing bookings
+     * are kept; slots that no longer exist simply stop being offered.
+     */
+    @Transactional
+    public ResourceResponse updateResource(Long id, ResourceRequest request) {
+        BookableResource resource = resourceRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Resource not found"));
+        if (!resource.getName().equals(request.getName()) && resourceRepository.existsByName(request.getName())) {
+            throw new IllegalArgumentException("A resource with this name already exists");
+        }
+        apply(resource, request);
+        BookableResource saved = resourceRepository.save(resource);
+        log.info("Updated resource {} ({})", saved.getId(), saved.getName());
+        eventPublisher.publishEvent(new ScheduleChangedEvent(saved.getId()));
+        availabilityNotifier.publishScheduleChange(saved.getId());
+        return ResourceResponse.from(saved);
+    }
+    
+    private static void apply(BookableResource resource, ResourceRequest request) {
+        List<ScheduleWindow> windows = request.getWindows().stream()
+                .map(ScheduleWindowDto::toEntity)
+                .toList();
+        validateWindows(windows);
+        resource.setName(request.getName());
+        resource.setActive(request.isActive());
+        resource.replaceWindows(windows);
+    }
+    
+    static void validateWindows(List<ScheduleWindow> windows) {
+        for (ScheduleWindow window : windows) {
+            if (!window.getStartTime().isBefore(window.getEndTime())) {
+                throw new IllegalArgumentException("Window start must be before its end");
+            }
+            if (window.getCapacity() < 1 || window.getCapacity() > SlotSchedule.MAX_CAPACITY) {
+                throw new IllegalArgumentException("Capacity must be between 1 and " + SlotSchedule.MAX_CAPACITY);
+            }
+        }
+        for (DayOfWeek day : DayOfWeek.values()) {
+            List<ScheduleWindow> sameDay = windows.stream()
+                    .filter(window -> window.appliesTo(day))
+                    .sorted(Comparator.comparing(ScheduleWindow::getStartTime))
+                    .toList();
+            for (int i = 1; i < sameDay.size(); i++) {
+                if (sameDay.get(i).getStartTime().isBefore(sameDay.get(i - 1).getEndTime())) {
+                    throw new IllegalArgumentException("Schedule windows overlap on " + day);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.event.ScheduleChangedEvent;
+import com.joyride.booking.model.BookableResource;
+import com.joyride.booking.model.ScheduleWindow;
+import com.joyride.booking.repository.BookableResourceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compiled slot schedules of every active resource, seven per resource (one per day of
+ * the week). Schedules are built from the database once the application is ready, or on
+ * first use if that comes earlier, and rebuilt as a whole whenever a schedule change
+ * commits, on this instance or another one (relayed by {@link AvailabilityNotifier});
+ * readers always see one consistent snapshot.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SlotEngine {
+    
+    private final BookableResourceRepository resourceRepository;
+    
+    // Not a monitor: the first load queries the database, which would pin virtual threads.
+    private final Lock loadLock = new ReentrantLock();
+    private final AtomicLong loads = new AtomicLong();
+    
+    private volatile Snapshot snapshot;
+    
+    /**
+     * @throws IllegalArgumentException if the resource does not exist or is inactive
+     */
+    public SlotSchedule schedule(long resourceId, LocalDate date) {
+        SlotSchedule[] week = snapshot().schedules().get(resourceId);
+        if (week == null) {
+            throw new IllegalArgumentException("Unknown resource: " + resourceId);
+        }
+        return week[date.getDayOfWeek().ordinal()];
+    }
+    
+    /**
+     * Returns {@code resourceId} after checking it can be booked, or the default resource
+     * (the oldest active one) when it is {@code null}.
+     */
+    public long resolve(Long resourceId) {
+        Snapshot current = snapshot();
+        if (resourceId == null) {
+            if (current.defaultResourceId() == null) {
+                throw new IllegalArgumentException("No bookable resource is configured");
+            }
+            return current.defaultResourceId();
+        }
+        if (!current.schedules().containsKey(resourceId)) {
+            throw new IllegalArgumentException("Unknown resource: " + resourceId);
+        }
+        return resourceId;
+    }
+    
+    /**
+     * Version of the compiled schedule of a resource, which changes whenever schedules are
+     * recompiled. Responses built from the schedule can be labelled with it.
+     *
+     * @throws IllegalArgumentException if the resource does not exist or is inactive
+     */
+    public long scheduleVersion(long resourceId) {
+        Snapshot current = snapshot();
+        if (!current.schedules().containsKey(resourceId)) {
+            throw new IllegalArgumentException("Unknown resource: " + resourceId);
+        }
+        return current.version();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        snapshot();
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        if (event.getResourceId() != null) {
+            log.info("Schedule of resource {} changed, recompiling slot schedules", event.getResourceId());
+        } else {
+            log.info("Schedules may have changed, recompiling slot schedules");
+        }
+        snapshot = load();
+    }
+    
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            loadLock.lock();
+            try {
+                current = snapshot;
+                if (current == null) {
+                    current = load();
+                    snapshot = current;
+                }
+            } finally {
+                loadLock.unlock();
+            }
+        }
+        return current;
+    }
+    
+    private Snapshot load() {
+        Map<Long, SlotSchedule[]> schedules = new HashMap<>();
+        Long defaultResourceId = null;
+        for (BookableResource resource : resourceRepository.findAllWithWindows()) {
+            if (!resource.isActive()) {
+                continue;
+            }
+            if (defaultResourceId == null) {
+                defaultResourceId = resource.getId();
+            }
+            schedules.put(resource.getId(), compileWeek(resource.getWindows()));
+        }
+        log.info("Compiled slot schedules for {} resources", schedules.size());
+        return new Snapshot(Map.copyOf(schedules), defaultResourceId, loads.incrementAndGet());
+    }
+    
+    static SlotSchedule[] compileWeek(List<ScheduleWindow> windows) {
+        SlotSchedule[] week = new SlotSchedule[DayOfWeek.values().length];
+        for (DayOfWeek day : DayOfWeek.values()) {
+            week[day.ordinal()] = SlotSchedule.compile(windows.stream()
+                    .filter(window -> window.appliesTo(day))
+                    .toList());
+        }
+        return week;
+    }
+    
+    private record Snapshot(Map<Long, SlotSchedule[]> schedules, Long defaultResourceId, long version) {
+    }
+}
@@ -0,0 +1,252 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.dto.SlotUpdate;
+import com.joyride.booking.dto.WaitlistOffer;
+import com.joyride.booking.event.SlotChangedEvent;
+import com.joyride.booking.event.WaitlistOfferedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams committed slot changes to clients as server-sent events, so they no longer
+ * have to poll for availability.
+ * <p>
+ * The number of subscribers is capped and each one gets a small bounded queue. Events
+ * are only queued on the committing thread; a shared pool writes them out, at most one
+ * task per subscriber at a time. A subscriber whose queue overflows is disconnected
+ * rather than buffered for, and is expected to reconnect and reload its slots.
+ */
+@Service
+@Slf4j
+public class SlotEventBroadcaster implements DisposableBean {
+    
+    static final String SLOT_TAKEN = "slot-taken";
+    static final String SLOT_FREED = "slot-freed";
+    static final String WAITLIST_OFFER = "waitlist-offer";
+    
+    private final SlotEngine slotEngine;
+    private final SlotOccupancyIndex slotOccupancyIndex;
+    private final int maxSubscribers;
+    private final int queueCapacity;
+    private final Duration timeout;
+    
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeats;
+    
+    public SlotEventBroadcaster(
+            SlotEngine slotEngine,
+            SlotOccupancyIndex slotOccupancyIndex,
+            @Value("${slots.events.max-subscribers:1000}") int maxSubscribers,
+            @Value("${slots.events.queue-capacity:32}") int queueCapacity,
+            @Value("${slots.events.timeout:30m}") Duration timeout,
+            @Value("${slots.events.heartbeat:15s}") Duration heartbeat,
+            @Value("${slots.events.sender-threads:4}") int senderThreads) {
+        this.slotEngine = slotEngine;
+        this.slotOccupancyIndex = slotOccupancyIndex;
+        this.maxSubscribers = maxSubscribers;
+        this.queueCapacity = queueCapacity;
+        this.timeout = timeout;
+        this.senders = Executors.newFixedThreadPool(senderThreads, new CustomizableThreadFactory("slot-events-"));
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("slot-events-heartbeat-"));
+        // Comments keep idle connections open through proxies and flush out dead clients.
+        heartbeats.scheduleAtFixedRate(() -> broadcast(Message.comment("heartbeat")),
+                heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Subscribes to changes of a resource's slots on the dates in {@code [from, to]}, and
+     * to the waitlist offers made to {@code userId} for any slot.
+     *
+     * @param resourceId resource to watch, or {@code null} for the default one
+     * @param userId user to pass waitlist offers to, or {@code null} for none
+     * @throws IllegalStateException if the subscriber limit is reached
+     */
+    public SseEmitter subscribe(Long resourceId, LocalDate from, LocalDate to, Long userId) {
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= BookingService.MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range must cover 1 to " + BookingService.MAX_RANGE_DAYS + " days");
+        }
+        long resource = slotEngine.resolve(resourceId);
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalStateException("Too many slot event subscribers");
+        }
+        
+        Subscriber subscriber = new Subscriber(resource, from, to, userId, newEmitter(timeout.toMillis()));
+        subscriber.emitter.onCompletion(subscriber::close);
+        subscriber.emitter.onTimeout(subscriber::close);
+        subscriber.emitter.onError(error -> subscriber.close());
+        subscribers.add(subscriber);
+        subscriber.offer(Message.comment("subscribed"));
+        return subscriber.emitter;
+    }
+    
+    /**
+     * Runs after the occupancy index has applied the same change, so the free seat count
+     * already includes it.
+     */
+    @TransactionalEventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onSlotChanged(SlotChangedEvent event) {
+        LocalDateTime slot = event.getSlot();
+        List<Subscriber> interested = subscribers.stream()
+                .filter(subscriber -> subscriber.wants(event.getResourceId(), slot.toLocalDate()))
+                .toList();
+        if (interested.isEmpty()) {
+            return;
+        }
+        
+        DayOccupancy day = slotOccupancyIndex.occupancy(event.getResourceId(), slot.toLocalDate());
+        int index = day.schedule().indexOf(slot.toLocalTime());
+        if (index < 0) {
+            return;
+        }
+        Message update = Message.event(event.isOccupied() ? SLOT_TAKEN : SLOT_FREED,
+                new SlotUpdate(event.getResourceId(), slot, day.schedule().capacity(index) - day.taken(index)));
+        interested.forEach(subscriber -> subscriber.offer(update));
+    }
+    
+    @TransactionalEventListener
+    public void onWaitlistOffered(WaitlistOfferedEvent event) {
+        Message offer = Message.event(WAITLIST_OFFER,
+                new WaitlistOffer(event.getBookingId(), event.getResourceId(), event.getSlot(), event.getHoldExpiresAt()));
+        subscribers.stream()
+                .filter(subscriber -> Objects.equals(subscriber.userId, event.getUserId()))
+                .forEach(subscriber -> subscriber.offer(offer));
+    }
+    
+    int subscriberCount() {
+        return subscriberCount.get();
+    }
+    
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+    
+    private void broadcast(Message event) {
+        subscribers.forEach(subscriber -> subscriber.offer(event));
+    }
+    
+    @Override
+    public void destroy() {
+        heartbeats.shutdownNow();
+        subscribers.forEach(Subscriber::disconnect);
+        senders.shutdown();
+    }
+    
+    /**
+     * An event as queued for every subscriber it goes to. Building an
+     * {@link SseEmitter.SseEventBuilder} changes it, so each send builds its own.
+     */
+    private record Message(String name, Object data, String comment) {
+        
+        static Message event(String name, Object data) {
+            return new Message(name, data, null);
+        }
+        
+        static Message comment(String comment) {
+            return new Message(null, null, comment);
+        }
+        
+        SseEmitter.SseEventBuilder toEvent() {
+            return comment != null ? SseEmitter.event().comment(comment) : SseEmitter.event().name(name).data(data);
+        }
+    }
+    
+    private final class Subscriber {
+        
+        private final long resourceId;
+        private final LocalDate from;
+        private final LocalDate to;
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Message> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        
+        Subscriber(long resourceId, LocalDate from, LocalDate to, Long userId, SseEmitter emitter) {
+            this.resourceId = resourceId;
+            this.from = from;
+            this.to = to;
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+        
+        boolean wants(long resourceId, LocalDate date) {
+            return this.resourceId == resourceId && !date.isBefore(from) && !date.isAfter(to);
+        }
+        
+        void offer(Message event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                log.info("Disconnecting slot event subscriber that fell {} events behind", queueCapacity);
+                disconnect();
+                return;
+            }
+            scheduleSend();
+        }
+        
+        private void scheduleSend() {
+            if (!queue.isEmpty() && !closed.get() && sending.compareAndSet(false, true)) {
+                senders.execute(this::send);
+            }
+        }
+        
+        private void send() {
+            try {
+                Message event;
+                while (!closed.get() && (event = queue.poll()) != null) {
+                    emitter.send(event.toEvent());
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Slot event subscriber went away: {}", e.getMessage());
+                close();
+            } finally {
+                sending.set(false);
+            }
+            // Events queued after the loop saw an empty queue would otherwise wait for the next offer.
+            scheduleSend();
+        }
+        
+        void disconnect() {
+            close();
+            emitter.complete();
+        }
+        
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                subscribers.remove(this);
+                subscriberCount.decrementAndGet();
+                queue.clear();
+            }
+        }
+    }
+}
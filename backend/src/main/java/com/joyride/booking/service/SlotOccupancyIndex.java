@@ -0,0 +1,196 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.event.SlotChangedEvent;
+import com.joyride.booking.model.BookedSeat;
+import com.joyride.booking.repository.BookingRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory index of taken seats, one {@link DayOccupancy} per resource and date.
+ * <p>
+ * A date is read from the database the first time it is requested and is then kept
+ * up to date from committed {@link SlotChangedEvent}s. Entries are copy-on-write, so
+ * readers never lock. An entry built against a schedule that has since been recompiled
+ * is treated as missing and read again. The number of days kept is bounded and every
+ * day is read again once it reaches the maximum age, so past dates and dates far ahead
+ * do not accumulate.
+ * <p>
+ * Seats that are being written are claimed here first, so concurrent requests for
+ * the same seat are turned away before they reach the database.
+ * <p>
+ * The index assumes this instance is the only writer: it only hears of changes
+ * committed here. With several instances, seats booked or freed elsewhere go unseen
+ * until the day reaches the maximum age or is {@linkplain #evict evicted}, which the
+ * booking path does when the database shows a claimed seat as taken.
+ */
+@Component
+@Slf4j
+public class SlotOccupancyIndex {
+    
+    private final BookingRepository bookingRepository;
+    private final SlotEngine slotEngine;
+    
+    private final Cache<ResourceDay, DayOccupancy> days;
+    private final ConcurrentMap<ResourceDay, DayOccupancy> occupancy;
+    private final Set<SeatClaim> claims = ConcurrentHashMap.newKeySet();
+    private final AtomicLong mutations = new AtomicLong();
+    
+    public SlotOccupancyIndex(BookingRepository bookingRepository,
+                              SlotEngine slotEngine,
+                              @Value("${slots.index.max-days:10000}") long maxDays,
+                              @Value("${slots.index.max-age:5m}") Duration maxAge) {
+        this.bookingRepository = bookingRepository;
+        this.slotEngine = slotEngine;
+        this.days = Caffeine.newBuilder()
+                .maximumSize(maxDays)
+                .expireAfter(Expiry.<ResourceDay, DayOccupancy>creating((day, occupancy) -> maxAge))
+                .build();
+        this.occupancy = days.asMap();
+    }
+    
+    public DayOccupancy occupancy(long resourceId, LocalDate date) {
+        DayOccupancy day = occupancy.get(new ResourceDay(resourceId, date));
+        if (day != null && day.schedule() == slotEngine.schedule(resourceId, date)) {
+            return day;
+        }
+        return load(resourceId, date, date, List.of(date)).get(date);
+    }
+    
+    /**
+     * Returns the occupancy of every date in {@code [from, to]}, fetching all cold dates
+     * in the range with a single query.
+     */
+    public Map<LocalDate, DayOccupancy> occupancy(long resourceId, LocalDate from, LocalDate to) {
+        Map<LocalDate, DayOccupancy> result = new HashMap<>();
+        List<LocalDate> coldDates = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            DayOccupancy day = occupancy.get(new ResourceDay(resourceId, date));
+            if (day != null && day.schedule() == slotEngine.schedule(resourceId, date)) {
+                result.put(date, day);
+            } else {
+                coldDates.add(date);
+            }
+        }
+        if (!coldDates.isEmpty()) {
+            result.putAll(load(resourceId, coldDates.get(0), coldDates.get(coldDates.size() - 1), coldDates));
+        }
+        return result;
+    }
+    
+    /**
+     * Reserves the lowest free seat of a slot for the caller until {@link #release} is
+     * called. At most one caller in this process holds a seat at a time; the partial
+     * unique index on confirmed bookings remains the guard across instances.
+     *
+     * @return the claimed seat, or -1 if the slot is full or does not exist
+     */
+    public int tryClaim(long resourceId, LocalDateTime slot) {
+        DayOccupancy day = occupancy(resourceId, slot.toLocalDate());
+        int index = day.schedule().indexOf(slot.toLocalTime());
+        if (index < 0) {
+            return -1;
+        }
+        for (int seat = 0; seat < day.schedule().capacity(index); seat++) {
+            if (day.isTaken(index, seat)) {
+                continue;
+            }
+            SeatClaim claim = new SeatClaim(resourceId, slot, seat);
+            if (!claims.add(claim)) {
+                continue;
+            }
+            // The previous holder may have committed between the check and the claim.
+            if (occupancy(resourceId, slot.toLocalDate()).isTaken(index, seat)) {
+                claims.remove(claim);
+                continue;
+            }
+            return seat;
+        }
+        return -1;
+    }
+    
+    public void release(long resourceId, LocalDateTime slot, int seat) {
+        claims.remove(new SeatClaim(resourceId, slot, seat));
+    }
+    
+    /**
+     * Drops a day that is known to be out of date, so the next read loads it again.
+     */
+    public void evict(long resourceId, LocalDate date) {
+        mutations.incrementAndGet();
+        occupancy.remove(new ResourceDay(resourceId, date));
+    }
+    
+    // First among the listeners, so those that read occupancy see the change.
+    @TransactionalEventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onSlotChanged(SlotChangedEvent event) {
+        LocalDateTime slot = event.getSlot();
+        mutations.incrementAndGet();
+        occupancy.computeIfPresent(new ResourceDay(event.getResourceId(), slot.toLocalDate()), (key, day) -> {
+            int index = day.schedule().indexOf(slot.toLocalTime());
+            if (index < 0 || event.getSeat() >= SlotSchedule.MAX_CAPACITY) {
+                return day;
+            }
+            return day.withSeat(index, event.getSeat(), event.isOccupied());
+        });
+    }
+    
+    long cachedDays() {
+        days.cleanUp();
+        return days.estimatedSize();
+    }
+    
+    private Map<LocalDate, DayOccupancy> load(long resourceId, LocalDate from, LocalDate to, List<LocalDate> coldDates) {
+        // A write that lands while we are reading may be missing from the result,
+        // so entries are only cached if nothing changed in the meantime.
+        long stamp = mutations.get();
+        List<BookedSeat> booked = bookingRepository.findBookedSeats(
+                resourceId, from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        
+        Map<LocalDate, DayOccupancy> loaded = new HashMap<>();
+        coldDates.forEach(date -> loaded.put(date, new DayOccupancy(slotEngine.schedule(resourceId, date))));
+        booked.forEach(seat -> {
+            DayOccupancy day = loaded.get(seat.getBookingDateTime().toLocalDate());
+            int index = day != null ? day.schedule().indexOf(seat.getBookingDateTime().toLocalTime()) : -1;
+            if (index >= 0 && seat.getSeat() < SlotSchedule.MAX_CAPACITY) {
+                day.markTaken(index, seat.getSeat());
+            }
+        });
+        
+        if (mutations.get() != stamp) {
+            log.debug("Slot index for resource {} on {}..{} changed during load, not caching", resourceId, from, to);
+            return loaded;
+        }
+        loaded.forEach((date, day) -> occupancy.put(new ResourceDay(resourceId, date), day));
+        if (mutations.get() != stamp) {
+            loaded.forEach((date, day) -> occupancy.remove(new ResourceDay(resourceId, date), day));
+        }
+        return loaded;
+    }
+    
+    private record ResourceDay(long resourceId, LocalDate date) {
+    }
+    
+    private record SeatClaim(long resourceId, LocalDateTime slot, int seat) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.model.ScheduleWindow;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The slots of one resource on one day of the week, compiled from its schedule windows
+ * into flat arrays ordered by start time. A minute-of-day table maps a start time back
+ * to its slot, so lookups cost the same however many windows or resources exist.
+ */
+public final class SlotSchedule {
+    
+    static final int MAX_CAPACITY = Long.SIZE;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    
+    static final SlotSchedule EMPTY = new SlotSchedule(new int[0], new int[0], new int[0]);
+    
+    private final int[] startMinutes;
+    private final int[] durations;
+    private final int[] capacities;
+    private final short[] slotByMinute;
+    
+    private SlotSchedule(int[] startMinutes, int[] durations, int[] capacities) {
+        this.startMinutes = startMinutes;
+        this.durations = durations;
+        this.capacities = capacities;
+        this.slotByMinute = new short[MINUTES_PER_DAY];
+        Arrays.fill(slotByMinute, (short) -1);
+        for (int i = 0; i < startMinutes.length; i++) {
+            slotByMinute[startMinutes[i]] = (short) i;
+        }
+    }
+    
+    /**
+     * Compiles the windows that apply to a single day. Windows are validated not to
+     * overlap when saved; should they anyway, a later window replaces any earlier
+     * slots from its own start onwards.
+     */
+    static SlotSchedule compile(List<ScheduleWindow> windows) {
+        if (windows.isEmpty()) {
+            return EMPTY;
+        }
+        int[] starts = new int[MINUTES_PER_DAY];
+        int[] durations = new int[MINUTES_PER_DAY];
+        int[] capacities = new int[MINUTES_PER_DAY];
+        int count = 0;
+        
+        List<ScheduleWindow> ordered = windows.stream()
+                .sorted(Comparator.comparing(ScheduleWindow::getStartTime))
+                .toList();
+        for (ScheduleWindow window : ordered) {
+            int end = minuteOfDay(window.getEndTime());
+            for (int minute = minuteOfDay(window.getStartTime()); minute < end; minute += window.getSlotMinutes()) {
+                while (count > 0 && starts[count - 1] >= minute) {
+                    count--;
+                }
+                starts[count] = minute;
+                durations[count] = window.getSlotMinutes();
+                capacities[count] = window.getCapacity();
+                count++;
+            }
+        }
+        return new SlotSchedule(
+                Arrays.copyOf(starts, count),
+                Arrays.copyOf(durations, count),
+                Arrays.copyOf(capacities, count));
+    }
+    
+    public int size() {
+        return startMinutes.length;
+    }
+    
+    /**
+     * @return the slot starting exactly at {@code time}, or -1 if no slot does
+     */
+    public int indexOf(LocalTime time) {
+        if (time.getSecond() != 0 || time.getNano() != 0) {
+            return -1;
+        }
+        return slotByMinute[minuteOfDay(time)];
+    }
+    
+    public LocalTime startTime(int slot) {
+        return LocalTime.of(startMinutes[slot] / 60, startMinutes[slot] % 60);
+    }
+    
+    public int durationMinutes(int slot) {
+        return durations[slot];
+    }
+    
+    public int capacity(int slot) {
+        return capacities[slot];
+    }
+    
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+}
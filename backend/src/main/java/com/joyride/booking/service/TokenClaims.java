@@ -0,0 +1,16 @@
+package com.joyride.booking.service;
+
+import lombok.Value;
+import java.util.Date;
+
+/**
+ * Claims of a token that passed signature and expiry checks.
+ */
+@Value
+public class TokenClaims {
+    String subject;
+    Date expiresAt;
+    Long userId;
+    String role;
+    Integer tokenVersion;
+}
@@ -0,0 +1,54 @@
+package com.joyride.booking.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.joyride.booking.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Current token version per user, used to revoke stateless tokens.
+ * <p>
+ * Versions are read from the database at most once per TTL per user. Changes made by
+ * this instance are pushed in immediately; changes made elsewhere are picked up when
+ * the entry expires.
+ */
+@Component
+public class TokenVersionRegistry {
+    
+    private final UserRepository userRepository;
+    private final Cache<Long, Integer> versions;
+    
+    public TokenVersionRegistry(
+            UserRepository userRepository,
+            @Value("${jwt.token-version-cache.max-size:10000}") long maxSize,
+            @Value("${jwt.token-version-cache.ttl:60s}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+    
+    public boolean isCurrent(Long userId, Integer tokenVersion) {
+        Integer current = versions.getIfPresent(userId);
+        if (current == null) {
+            current = userRepository.findTokenVersionById(userId).orElse(null);
+            if (current == null) {
+                return false;
+            }
+            versions.put(userId, current);
+        }
+        return current.equals(tokenVersion);
+    }
+    
+    public void update(Long userId, int tokenVersion) {
+        versions.put(userId, tokenVersion);
+    }
+    
+    public void evict(Long userId) {
+        versions.invalidate(userId);
+    }
+}
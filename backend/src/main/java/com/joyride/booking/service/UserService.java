@@ -1,21 +1,35 @@
 package com.joyride.booking.service;
 
+import com.joyride.booking.model.User;
 import com.joyride.booking.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
-public class UserService implements UserDetailsService {
+@Slf4j
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
     
     private final UserRepository userRepository;
     
     @Override
-    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+    public User loadUserByUsername(String username) throws UsernameNotFoundException {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
     }
+    
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = loadUserByUsername(userDetails.getUsername());
+        user.setPassword(newPassword);
+        log.info("Re-hashed password for user: {}", user.getUsername());
+        return userRepository.save(user);
+    }
 }
\ No newline at end of file
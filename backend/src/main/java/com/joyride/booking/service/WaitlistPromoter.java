@@ -0,0 +1,114 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.event.SlotChangedEvent;
+import com.joyride.booking.model.WaitlistSlot;
+import com.joyride.booking.repository.WaitlistEntryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Hands freed seats to the waitlist. Committed releases, whether cancellations or
+ * lapsed holds, queue their slot for a single worker thread, which offers the slot's
+ * free seats to its waiting users one transaction at a time. A slot that is already
+ * queued is not queued again.
+ * <p>
+ * A periodic sweep queues every slot that still has waiters, covering releases that
+ * happened on other instances or before a restart.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WaitlistPromoter implements SmartLifecycle {
+    
+    private final WaitlistService waitlistService;
+    private final WaitlistEntryRepository waitlistRepository;
+    
+    private final BlockingQueue<WaitlistSlot> queue = new LinkedBlockingQueue<>();
+    private final Set<WaitlistSlot> queued = ConcurrentHashMap.newKeySet();
+    
+    private volatile Thread worker;
+    
+    // After the occupancy index, so the freed seat already shows as free.
+    @TransactionalEventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onSlotChanged(SlotChangedEvent event) {
+        if (!event.isOccupied()) {
+            enqueue(new WaitlistSlot(event.getResourceId(), event.getSlot()));
+        }
+    }
+    
+    @Scheduled(initialDelayString = "${bookings.waitlist.sweep-interval:1m}",
+            fixedDelayString = "${bookings.waitlist.sweep-interval:1m}")
+    public void sweep() {
+        int purged = waitlistService.purgePast();
+        if (purged > 0) {
+            log.info("Dropped {} waitlist entries for past slots", purged);
+        }
+        waitlistRepository.findWaitedSlots(LocalDateTime.now()).forEach(this::enqueue);
+    }
+    
+    int pending() {
+        return queue.size();
+    }
+    
+    @Override
+    public void start() {
+        Thread thread = new Thread(this::promote, "waitlist-promoter");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+    
+    @Override
+    public void stop() {
+        Thread thread = worker;
+        worker = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return worker != null;
+    }
+    
+    private void enqueue(WaitlistSlot slot) {
+        if (queued.add(slot)) {
+            queue.add(slot);
+        }
+    }
+    
+    private void promote() {
+        while (worker != null) {
+            WaitlistSlot slot;
+            try {
+                slot = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            queued.remove(slot);
+            try {
+                while (waitlistService.offerNext(slot.getResourceId(), slot.getSlot())) {
+                    // One offer per transaction until the slot is full or nobody waits.
+                }
+            } catch (IllegalStateException e) {
+                log.info("Stopped offering {} on resource {}: {}", slot.getSlot(), slot.getResourceId(), e.getMessage());
+            } catch (RuntimeException e) {
+                log.error("Offering {} on resource {} failed: {}", slot.getSlot(), slot.getResourceId(), e.getMessage());
+            }
+        }
+    }
+}
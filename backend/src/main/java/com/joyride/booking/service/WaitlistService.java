@@ -0,0 +1,121 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.dto.WaitlistEntryResponse;
+import com.joyride.booking.event.WaitlistOfferedEvent;
+import com.joyride.booking.model.Booking;
+import com.joyride.booking.model.WaitlistEntry;
+import com.joyride.booking.repository.BookableResourceRepository;
+import com.joyride.booking.repository.BookingRepository;
+import com.joyride.booking.repository.UserRepository;
+import com.joyride.booking.repository.WaitlistEntryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WaitlistService {
+    
+    private final WaitlistEntryRepository waitlistRepository;
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final SlotEngine slotEngine;
+    private final SlotOccupancyIndex slotOccupancyIndex;
+    private final UserRepository userRepository;
+    private final BookableResourceRepository resourceRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    /**
+     * Puts a user in line for a full slot.
+     *
+     * @param resourceId resource of the slot, or {@code null} for the default one
+     */
+    @Transactional
+    public WaitlistEntryResponse join(Long userId, Long resourceId, LocalDateTime slot) {
+        log.info("User {} joining waitlist of resource {} at {}", userId, resourceId, slot);
+        long resource = slotEngine.resolve(resourceId);
+        int index = bookingService.validateBookingDateTime(resource, slot);
+        if (!slotOccupancyIndex.occupancy(resource, slot.toLocalDate()).isFull(index)) {
+            throw new IllegalStateException("This time slot still has free seats");
+        }
+        // Otherwise the promoter could hand a second seat of the slot to the same user.
+        if (bookingRepository.holdsSeat(userId, resource, slot)) {
+            throw new IllegalStateException("You already have a seat in this time slot");
+        }
+        
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setUser(userRepository.getReferenceById(userId));
+        entry.setResource(resourceRepository.getReferenceById(resource));
+        entry.setSlotDateTime(slot);
+        try {
+            waitlistRepository.saveAndFlush(entry);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("You are already on the waitlist for this slot");
+        }
+        return waitlistRepository.findResponsesByUser(userId, slot).stream()
+                .filter(response -> response.getId().equals(entry.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+    
+    @Transactional
+    public void leave(Long entryId, Long userId) {
+        WaitlistEntry entry = waitlistRepository.findById(entryId)
+                .orElseThrow(() -> new IllegalArgumentException("Waitlist entry not found"));
+        if (!entry.getUser().getId().equals(userId)) {
+            throw new IllegalStateException("You can only leave your own waitlist entries");
+        }
+        waitlistRepository.delete(entry);
+    }
+    
+    public List<WaitlistEntryResponse> getUserEntries(Long userId) {
+        return waitlistRepository.findResponsesByUser(userId, LocalDateTime.now());
+    }
+    
+    /**
+     * Gives the first user waiting for a slot a hold on one of its free seats. Taking
+     * the waiter off the list and placing the hold commit together, so a waiter is
+     * never dropped without an offer nor offered twice.
+     *
+     * @return whether an offer was made; {@code false} once the slot is full, past or
+     *         nobody is waiting
+     * @throws IllegalStateException if another booking took the free seat first
+     */
+    @Transactional
+    public boolean offerNext(long resourceId, LocalDateTime slot) {
+        if (slot.isBefore(LocalDateTime.now())) {
+            return false;
+        }
+        DayOccupancy day = slotOccupancyIndex.occupancy(resourceId, slot.toLocalDate());
+        int index = day.schedule().indexOf(slot.toLocalTime());
+        if (index < 0 || day.isFull(index)) {
+            return false;
+        }
+        Optional<WaitlistEntry> next = waitlistRepository.findNextForUpdate(resourceId, slot);
+        if (next.isEmpty()) {
+            return false;
+        }
+        
+        WaitlistEntry entry = next.get();
+        Long userId = entry.getUser().getId();
+        Booking held = bookingService.holdSlot(userId, resourceId, slot, null);
+        waitlistRepository.delete(entry);
+        eventPublisher.publishEvent(new WaitlistOfferedEvent(
+                userId, held.getId(), resourceId, slot, held.getHoldExpiresAt()));
+        log.info("Offered seat {} of {} on resource {} to waiting user {}", held.getSeat(), slot, resourceId, userId);
+        return true;
+    }
+    
+    @Transactional
+    public int purgePast() {
+        return waitlistRepository.deletePast(LocalDateTime.now());
+    }
+}
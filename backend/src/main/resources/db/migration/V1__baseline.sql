@@ -0,0 +1,126 @@
+-- Schema as it stood when Hibernate's ddl-auto=update gave way to migrations. Every
+-- statement is idempotent: databases that Hibernate created are baselined by running
+-- this script over them, which only adds what they lack.
+
+CREATE TABLE IF NOT EXISTS users (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username      VARCHAR(255) NOT NULL UNIQUE,
+    email         VARCHAR(255) NOT NULL UNIQUE,
+    password      VARCHAR(255) NOT NULL,
+    phone_number  VARCHAR(255),
+    role          VARCHAR(255) NOT NULL CHECK (role IN ('USER', 'JOYRIDE', 'ADMIN')),
+    enabled       BOOLEAN      NOT NULL,
+    token_version INTEGER      NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS resources (
+    id     BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name   VARCHAR(255) NOT NULL UNIQUE,
+    active BOOLEAN      NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS schedule_windows (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    resource_id  BIGINT       NOT NULL REFERENCES resources (id),
+    day_of_week  VARCHAR(255) CHECK (day_of_week IN ('MONDAY', 'TUESDAY', 'WEDNESDAY', 'THURSDAY', 'FRIDAY',
+                                                     'SATURDAY', 'SUNDAY')),
+    start_time   TIME(0)      NOT NULL,
+    end_time     TIME(0)      NOT NULL,
+    slot_minutes INTEGER      NOT NULL,
+    capacity     INTEGER      NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS admin_availability (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    available_date DATE         NOT NULL UNIQUE,
+    is_available   BOOLEAN      NOT NULL,
+    notes          VARCHAR(255)
+);
+
+-- The status column is written from the enum only, so it carries no check: Hibernate's
+-- update mode never widened the one it generated, and older databases rejected HELD.
+CREATE TABLE IF NOT EXISTS bookings (
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id           BIGINT       NOT NULL REFERENCES users (id),
+    booking_date_time TIMESTAMP(6) NOT NULL,
+    duration_minutes  INTEGER      NOT NULL,
+    status            VARCHAR(255) NOT NULL,
+    notes             VARCHAR(255),
+    created_at        TIMESTAMP(6) NOT NULL,
+    updated_at        TIMESTAMP(6) NOT NULL
+);
+
+ALTER TABLE bookings DROP CONSTRAINT IF EXISTS bookings_status_check;
+
+-- Older schemas carry a table-wide unique key on booking_date_time, which also made
+-- cancelled bookings block their slot forever.
+ALTER TABLE bookings DROP CONSTRAINT IF EXISTS uksv81iee525aimbwv7q6op9mel;
+
+-- Columns added to bookings after its first release.
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS resource_id BIGINT REFERENCES resources (id);
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS seat INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS hold_expires_at TIMESTAMP(6);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_status_date_time ON bookings (status, booking_date_time);
+CREATE INDEX IF NOT EXISTS idx_bookings_date_time_id ON bookings (booking_date_time, id);
+CREATE INDEX IF NOT EXISTS idx_bookings_user_date_time_id ON bookings (user_id, booking_date_time, id);
+
+-- A seat of a slot may only hold one confirmed or held booking; a slot's capacity is its
+-- number of seats.
+DROP INDEX IF EXISTS uk_bookings_confirmed_slot;
+DROP INDEX IF EXISTS uk_bookings_confirmed_seat;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_bookings_active_seat
+    ON bookings (resource_id, booking_date_time, seat)
+    WHERE status IN ('CONFIRMED', 'HELD');
+
+-- Only held bookings are indexed, so finding expired holds never touches the rest.
+CREATE INDEX IF NOT EXISTS idx_bookings_held_expiry
+    ON bookings (hold_expires_at)
+    WHERE status = 'HELD';
+
+CREATE TABLE IF NOT EXISTS waitlist_entries (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id        BIGINT       NOT NULL REFERENCES users (id),
+    resource_id    BIGINT       NOT NULL REFERENCES resources (id),
+    slot_date_time TIMESTAMP(6) NOT NULL,
+    created_at     TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_waitlist_user_slot UNIQUE (user_id, resource_id, slot_date_time)
+);
+
+CREATE INDEX IF NOT EXISTS idx_waitlist_slot_created_id
+    ON waitlist_entries (resource_id, slot_date_time, created_at, id);
+
+-- First outcome of each Idempotency-Key, so retried booking requests get the same answer.
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id           VARCHAR(150) PRIMARY KEY,
+    request_hash VARCHAR(64)  NOT NULL,
+    response     TEXT,
+    created_at   TIMESTAMP    NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys (created_at);
+
+-- Progress of batch jobs that walk a table in key order, e.g. the booking completion job;
+-- position_time and position_id are the key of the last row handled.
+CREATE TABLE IF NOT EXISTS job_checkpoints (
+    name          VARCHAR(100) PRIMARY KEY,
+    position_time TIMESTAMP,
+    position_id   BIGINT,
+    updated_at    TIMESTAMP    NOT NULL
+);
+
+-- Default resource with the original opening hours: 06:00-07:30 and 17:00-18:30 every
+-- day, 20-minute slots, one booking per slot.
+INSERT INTO resources (name, active)
+SELECT 'Joyride', true
+WHERE NOT EXISTS (SELECT 1 FROM resources);
+
+INSERT INTO schedule_windows (resource_id, day_of_week, start_time, end_time, slot_minutes, capacity)
+SELECT r.id, NULL, w.start_time, w.end_time, 20, 1
+FROM (SELECT min(id) AS id FROM resources) r,
+     (VALUES (TIME '06:00', TIME '07:30'), (TIME '17:00', TIME '18:30')) AS w (start_time, end_time)
+WHERE NOT EXISTS (SELECT 1 FROM schedule_windows);
+
+-- Bookings made before resources existed belong to the default resource.
+UPDATE bookings SET resource_id = (SELECT min(id) FROM resources) WHERE resource_id IS NULL;
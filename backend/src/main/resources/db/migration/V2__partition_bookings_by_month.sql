@@ -0,0 +1,92 @@
+-- Range-partitions bookings by month of booking_date_time. Queries for a date range only
+-- read the partitions it overlaps, and months past their retention are archived by
+-- detaching a partition rather than deleting rows (see BookingPartitionManager).
+--
+-- Bookings outside every monthly partition land in bookings_default;
+-- create_booking_partition moves them out when their month is created.
+
+ALTER TABLE bookings RENAME TO bookings_unpartitioned;
+ALTER INDEX bookings_pkey RENAME TO bookings_unpartitioned_pkey;
+-- Frees the sequence name: an identity sequence is dropped, a serial one is kept.
+ALTER TABLE bookings_unpartitioned ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER SEQUENCE IF EXISTS bookings_id_seq OWNED BY NONE;
+DROP INDEX IF EXISTS idx_bookings_status_date_time;
+DROP INDEX IF EXISTS idx_bookings_date_time_id;
+DROP INDEX IF EXISTS idx_bookings_user_date_time_id;
+DROP INDEX IF EXISTS uk_bookings_active_seat;
+DROP INDEX IF EXISTS idx_bookings_held_expiry;
+
+CREATE SEQUENCE IF NOT EXISTS bookings_id_seq;
+
+-- Unique constraints on a partitioned table must contain the partition key, so the
+-- primary key does too; ids still come from one sequence and stay unique.
+CREATE TABLE bookings (
+    id                BIGINT       NOT NULL DEFAULT nextval('bookings_id_seq'),
+    user_id           BIGINT       NOT NULL REFERENCES users (id),
+    resource_id       BIGINT       REFERENCES resources (id),
+    booking_date_time TIMESTAMP(6) NOT NULL,
+    seat              INTEGER      NOT NULL DEFAULT 0,
+    duration_minutes  INTEGER      NOT NULL,
+    status            VARCHAR(255) NOT NULL,
+    notes             VARCHAR(255),
+    hold_expires_at   TIMESTAMP(6),
+    created_at        TIMESTAMP(6) NOT NULL,
+    updated_at        TIMESTAMP(6) NOT NULL,
+    CONSTRAINT bookings_pkey PRIMARY KEY (id, booking_date_time)
+) PARTITION BY RANGE (booking_date_time);
+
+ALTER SEQUENCE bookings_id_seq OWNED BY bookings.id;
+
+CREATE TABLE bookings_default PARTITION OF bookings DEFAULT;
+
+-- Creates the partition bookings_yYYYYmMM for the month of the given date, moving its
+-- rows out of bookings_default. Returns false if the partition already exists.
+CREATE FUNCTION create_booking_partition(for_month DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    first_day DATE := date_trunc('month', for_month)::date;
+    next_day  DATE := (date_trunc('month', for_month) + INTERVAL '1 month')::date;
+    partition_name TEXT := 'bookings_y' || to_char(first_day, 'YYYY') || 'm' || to_char(first_day, 'MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE bookings INCLUDING DEFAULTS)', partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM bookings_default WHERE booking_date_time >= %L '
+                   'AND booking_date_time < %L RETURNING *) INSERT INTO %I SELECT * FROM moved',
+                   first_day, next_day, partition_name);
+    EXECUTE format('ALTER TABLE bookings ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, first_day, next_day);
+    RETURN true;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Every month from the oldest booking to a year ahead, or further if bookings reach it.
+SELECT create_booking_partition(month::date)
+FROM generate_series(
+        date_trunc('month', LEAST(LOCALTIMESTAMP, (SELECT min(booking_date_time) FROM bookings_unpartitioned))),
+        date_trunc('month', GREATEST(LOCALTIMESTAMP + INTERVAL '12 months',
+                                     (SELECT max(booking_date_time) FROM bookings_unpartitioned))),
+        INTERVAL '1 month') AS month;
+
+INSERT INTO bookings (id, user_id, resource_id, booking_date_time, seat, duration_minutes, status, notes,
+                      hold_expires_at, created_at, updated_at)
+SELECT id, user_id, resource_id, booking_date_time, seat, duration_minutes, status, notes,
+       hold_expires_at, created_at, updated_at
+FROM bookings_unpartitioned;
+
+SELECT setval('bookings_id_seq', COALESCE((SELECT max(id) FROM bookings), 0) + 1, false);
+
+DROP TABLE bookings_unpartitioned;
+
+-- Declared on the parent, so every partition gets them, including ones created later.
+CREATE INDEX idx_bookings_status_date_time ON bookings (status, booking_date_time);
+CREATE INDEX idx_bookings_date_time_id ON bookings (booking_date_time, id);
+CREATE INDEX idx_bookings_user_date_time_id ON bookings (user_id, booking_date_time, id);
+
+CREATE UNIQUE INDEX uk_bookings_active_seat
+    ON bookings (resource_id, booking_date_time, seat)
+    WHERE status IN ('CONFIRMED', 'HELD');
+
+CREATE INDEX idx_bookings_held_expiry
+    ON bookings (hold_expires_at)
+    WHERE status = 'HELD';
@@ -0,0 +1,12 @@
+-- Indexes for the hot queries not yet served by one.
+
+-- The day views, the admin export of confirmed bookings and the completion job all read
+-- confirmed bookings in (booking_date_time, id) order. Past bookings are completed, so the
+-- index only holds the upcoming working set.
+CREATE INDEX IF NOT EXISTS idx_bookings_confirmed_date_time_id
+    ON bookings (booking_date_time, id)
+    WHERE status = 'CONFIRMED';
+
+-- Finding the slots with waiters on startup and clearing past entries filter on the slot
+-- time alone, which idx_waitlist_slot_created_id cannot seek on.
+CREATE INDEX IF NOT EXISTS idx_waitlist_slot_date_time ON waitlist_entries (slot_date_time);
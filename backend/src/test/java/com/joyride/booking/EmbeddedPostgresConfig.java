@@ -0,0 +1,41 @@
+package com.joyride.booking;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Backs repository tests with a real PostgreSQL started from the embedded-postgres
+ * binaries, so planner and dialect behaviour match production without Docker.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class EmbeddedPostgresConfig {
+
+	private static EmbeddedPostgres postgres;
+
+	@Bean
+	public DataSource dataSource() {
+		return server().getPostgresDatabase();
+	}
+
+	private static synchronized EmbeddedPostgres server() {
+		if (postgres == null) {
+			try {
+				postgres = EmbeddedPostgres.start();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					postgres.close();
+				} catch (IOException ignored) {
+				}
+			}));
+		}
+		return postgres;
+	}
+}
@@ -0,0 +1,146 @@
+package com.joyride.booking.config;
+
+import com.joyride.booking.EmbeddedPostgresConfig;
+import com.joyride.booking.model.AuthenticatedUser;
+import com.joyride.booking.model.Role;
+import com.joyride.booking.model.User;
+import com.joyride.booking.model.UserCacheEvictionListener;
+import com.joyride.booking.repository.UserRepository;
+import com.joyride.booking.service.JwtService;
+import com.joyride.booking.service.PrincipalCache;
+import com.joyride.booking.service.TokenVersionRegistry;
+import com.joyride.booking.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Not transactional: the token version registry only learns about committed changes.
+@DataJpaTest(properties = "jwt.stateless=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({EmbeddedPostgresConfig.class, SimpleMeterRegistry.class, JwtService.class, UserService.class,
+		PrincipalCache.class, TokenVersionRegistry.class, UserCacheEvictionListener.class, JwtAuthenticationFilter.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JwtAuthenticationFilterTest {
+
+	@Autowired
+	private JwtAuthenticationFilter filter;
+
+	@Autowired
+	private JwtService jwtService;
+
+	@Autowired
+	private TokenVersionRegistry tokenVersions;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private User rider;
+	private String token;
+
+	@BeforeEach
+	void riderWithToken() {
+		User user = new User();
+		user.setUsername("rider");
+		user.setEmail("rider@example.com");
+		user.setPassword("x");
+		rider = userRepository.save(user);
+		token = jwtService.generateToken(rider);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		userRepository.deleteAll();
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void currentTokenAuthenticatesFromItsClaims() {
+		assertThat(authenticate(token)).isEqualTo(new AuthenticatedUser(rider.getId(), "rider", Role.USER));
+		assertThat(tokenVersions.isCurrent(rider.getId(), 0)).isTrue();
+	}
+
+	@Test
+	void disablingTheUserRevokesTheirToken() {
+		assertThat(authenticate(token)).isNotNull();
+
+		update(user -> user.setEnabled(false));
+
+		assertThat(authenticate(token)).isNull();
+	}
+
+	@Test
+	void changingTheRoleRevokesTheTokenAndANewOneCarriesTheNewRole() {
+		assertThat(authenticate(token)).isNotNull();
+
+		update(user -> user.setRole(Role.ADMIN));
+
+		assertThat(authenticate(token)).isNull();
+		User promoted = userRepository.findById(rider.getId()).orElseThrow();
+		assertThat(authenticate(jwtService.generateToken(promoted)))
+				.isEqualTo(new AuthenticatedUser(rider.getId(), "rider", Role.ADMIN));
+	}
+
+	@Test
+	void rolledBackUpdateLeavesTheTokenValid() {
+		assertThat(authenticate(token)).isNotNull();
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			User user = userRepository.findById(rider.getId()).orElseThrow();
+			user.setEnabled(false);
+			userRepository.saveAndFlush(user);
+			status.setRollbackOnly();
+		});
+
+		assertThat(userRepository.findTokenVersionById(rider.getId())).contains(0);
+		assertThat(authenticate(token)).isEqualTo(new AuthenticatedUser(rider.getId(), "rider", Role.USER));
+	}
+
+	@Test
+	void tokensWithoutAVersionAreRejected() {
+		String unversioned = jwtService.generateToken(Map.of("uid", rider.getId(), "role", "USER"), rider);
+
+		assertThat(authenticate(unversioned)).isNull();
+	}
+
+	private void update(Consumer<User> change) {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			User user = userRepository.findById(rider.getId()).orElseThrow();
+			change.accept(user);
+		});
+	}
+
+	private AuthenticatedUser authenticate(String jwt) {
+		SecurityContextHolder.clearContext();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Authorization", "Bearer " + jwt);
+		try {
+			filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		return authentication != null ? (AuthenticatedUser) authentication.getPrincipal() : null;
+	}
+}
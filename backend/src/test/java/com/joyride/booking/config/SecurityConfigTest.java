@@ -0,0 +1,75 @@
+package com.joyride.booking.config;
+
+import com.joyride.booking.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SecurityConfigTest {
+
+	private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+	private final UserDetailsPasswordService passwordService = mock(UserDetailsPasswordService.class);
+	private final SecurityConfig securityConfig = new SecurityConfig(null, userDetailsService, passwordService);
+
+	@Test
+	void hashesOfAnyOtherCostAreUpgraded() {
+		PasswordEncoder cost4 = encoder(4);
+		PasswordEncoder cost5 = encoder(5);
+
+		assertThat(cost4.upgradeEncoding(cost4.encode("secret1"))).isFalse();
+		assertThat(cost5.upgradeEncoding(cost4.encode("secret1"))).isTrue();
+		assertThat(cost4.upgradeEncoding(cost5.encode("secret1"))).isTrue();
+	}
+
+	@Test
+	void loginRehashesAPasswordOfAnotherCost() {
+		User rider = rider(encoder(5).encode("secret1"));
+		when(userDetailsService.loadUserByUsername("rider")).thenReturn(rider);
+		when(passwordService.updatePassword(any(), anyString())).thenAnswer(invocation -> rider);
+
+		login(encoder(4));
+
+		verify(passwordService).updatePassword(eq(rider), startsWith("$2a$04$"));
+	}
+
+	@Test
+	void loginKeepsAPasswordOfTheConfiguredCost() {
+		User rider = rider(encoder(4).encode("secret1"));
+		when(userDetailsService.loadUserByUsername("rider")).thenReturn(rider);
+
+		login(encoder(4));
+
+		verify(passwordService, never()).updatePassword(any(), anyString());
+	}
+
+	private void login(PasswordEncoder passwordEncoder) {
+		AuthenticationProvider provider = securityConfig.authenticationProvider(passwordEncoder);
+		assertThat(provider.authenticate(new UsernamePasswordAuthenticationToken("rider", "secret1")).isAuthenticated())
+				.isTrue();
+	}
+
+	private PasswordEncoder encoder(int strength) {
+		return securityConfig.passwordEncoder(strength, new SimpleMeterRegistry());
+	}
+
+	private static User rider(String password) {
+		User user = new User();
+		user.setUsername("rider");
+		user.setPassword(password);
+		return user;
+	}
+}
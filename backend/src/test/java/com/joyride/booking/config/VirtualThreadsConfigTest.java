@@ -0,0 +1,22 @@
+package com.joyride.booking.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VirtualThreadsConfigTest {
+
+	@Test
+	void javaBelow21IsRejected() {
+		assertThatThrownBy(() -> VirtualThreadsConfig.requireVirtualThreads(17))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("Java 21");
+	}
+
+	@Test
+	void java21AndLaterAreAccepted() {
+		assertThatCode(() -> VirtualThreadsConfig.requireVirtualThreads(21)).doesNotThrowAnyException();
+		assertThatCode(() -> VirtualThreadsConfig.requireVirtualThreads(25)).doesNotThrowAnyException();
+	}
+}
@@ -0,0 +1,132 @@
+package com.joyride.booking.controller;
+
+import com.joyride.booking.model.User;
+import com.joyride.booking.repository.UserRepository;
+import com.joyride.booking.service.JwtService;
+import com.joyride.booking.service.PasswordHashingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AuthControllerTest {
+
+	private static final String LOGIN = "{\"username\":\"rider\",\"password\":\"secret1\"}";
+	private static final String REGISTER = "{\"username\":\"rider\",\"email\":\"rider@example.com\",\"password\":\"secret1\"}";
+
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final AuthenticationManager authenticationManager = mock(AuthenticationManager.class);
+	private final PasswordHashingService passwordHashingService =
+			new PasswordHashingService(mock(PasswordEncoder.class), 1, 1);
+	private final ExecutorService taskExecutor = Executors.newSingleThreadExecutor(task -> new Thread(task, "task-executor"));
+	private final CountDownLatch release = new CountDownLatch(1);
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		JwtService jwtService = new JwtService("AuthControllerTestSecretKeyThatIsAtLeast256BitsLongForHS256", 60_000L);
+		mockMvc = MockMvcBuilders.standaloneSetup(new AuthController(userRepository, passwordHashingService, jwtService,
+				authenticationManager, taskExecutor)).build();
+	}
+
+	@AfterEach
+	void shutDown() {
+		release.countDown();
+		passwordHashingService.destroy();
+		taskExecutor.shutdown();
+	}
+
+	@Test
+	void loginAnswersThroughTheAsyncContinuation() throws Exception {
+		User rider = new User();
+		rider.setId(1L);
+		rider.setUsername("rider");
+		rider.setEmail("rider@example.com");
+		when(authenticationManager.authenticate(any())).thenAnswer(invocation -> {
+			assertThat(Thread.currentThread().getName()).startsWith("password-hashing-");
+			return new UsernamePasswordAuthenticationToken(rider, null, rider.getAuthorities());
+		});
+
+		MvcResult result = mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(LOGIN))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.username").value("rider"))
+				.andExpect(jsonPath("$.token").isNotEmpty());
+	}
+
+	@Test
+	void failedLoginIsUnauthorized() throws Exception {
+		when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("bad credentials"));
+
+		MvcResult result = mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(LOGIN))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void saturatedHashingAnswersServiceUnavailableWithRetryAfter() throws Exception {
+		saturate();
+
+		MvcResult login = mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(LOGIN))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(login))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+		MvcResult register = mockMvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON).content(REGISTER))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(register))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+		verify(authenticationManager, never()).authenticate(any());
+		verify(userRepository, never()).save(any());
+	}
+
+	// Occupies the single hashing thread and the single queue slot.
+	private void saturate() {
+		for (int i = 0; i < 2; i++) {
+			passwordHashingService.submit(() -> {
+				try {
+					return release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			});
+		}
+	}
+}
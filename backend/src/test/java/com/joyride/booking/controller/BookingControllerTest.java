@@ -0,0 +1,118 @@
+package com.joyride.booking.controller;
+
+import com.joyride.booking.model.BookableResource;
+import com.joyride.booking.model.ScheduleWindow;
+import com.joyride.booking.repository.BookableResourceRepository;
+import com.joyride.booking.service.AvailabilityVersions;
+import com.joyride.booking.service.BookingService;
+import com.joyride.booking.service.SlotEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class BookingControllerTest {
+
+	private static final LocalDate DATE = LocalDate.now().plusDays(10);
+
+	private final BookingService bookingService = mock(BookingService.class);
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void twoVehicles() {
+		BookableResourceRepository resourceRepository = mock(BookableResourceRepository.class);
+		when(resourceRepository.findAllWithWindows()).thenReturn(List.of(
+				resource(1L, LocalTime.of(6, 0)), resource(2L, LocalTime.of(17, 0))));
+		BookingController controller = new BookingController(bookingService, null, new SlotEngine(resourceRepository),
+				null, new AvailabilityVersions(Duration.ofSeconds(5)), null);
+		mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+		when(bookingService.getAvailableSlots(1L, DATE)).thenReturn(List.of(DATE.atTime(6, 0)));
+		when(bookingService.getAvailableSlots(2L, DATE)).thenReturn(List.of(DATE.atTime(17, 20)));
+		when(bookingService.getAvailableSlots(1L, DATE, DATE.plusDays(1)))
+				.thenReturn(Map.of(DATE, List.of(LocalTime.of(6, 0))));
+		when(bookingService.getAvailableSlots(2L, DATE, DATE.plusDays(1)))
+				.thenReturn(Map.of(DATE, List.of(LocalTime.of(17, 20))));
+	}
+
+	@Test
+	void aTagOnlyMatchesTheResourceItWasIssuedFor() throws Exception {
+		String tag = mockMvc.perform(get("/api/bookings/available-slots").param("date", DATE.toString())
+						.param("resourceId", "1"))
+				.andExpect(status().isOk())
+				.andExpect(content().string("[\"" + DATE + "T06:00:00\"]"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(get("/api/bookings/available-slots").param("date", DATE.toString())
+						.param("resourceId", "1").header(HttpHeaders.IF_NONE_MATCH, tag))
+				.andExpect(status().isNotModified());
+		String otherTag = mockMvc.perform(get("/api/bookings/available-slots").param("date", DATE.toString())
+						.param("resourceId", "2").header(HttpHeaders.IF_NONE_MATCH, tag))
+				.andExpect(status().isOk())
+				.andExpect(content().string("[\"" + DATE + "T17:20:00\"]"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		assertThat(otherTag).isNotNull().isNotEqualTo(tag);
+	}
+
+	@Test
+	void rangeTagsOnlyMatchTheResourceTheyWereIssuedFor() throws Exception {
+		String tag = mockMvc.perform(get("/api/bookings/available-slots/range").param("from", DATE.toString())
+						.param("to", DATE.plusDays(1).toString()).param("resourceId", "1"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(get("/api/bookings/available-slots/range").param("from", DATE.toString())
+						.param("to", DATE.plusDays(1).toString()).param("resourceId", "1")
+						.header(HttpHeaders.IF_NONE_MATCH, tag))
+				.andExpect(status().isNotModified());
+		mockMvc.perform(get("/api/bookings/available-slots/range").param("from", DATE.toString())
+						.param("to", DATE.plusDays(1).toString()).param("resourceId", "2")
+						.header(HttpHeaders.IF_NONE_MATCH, tag))
+				.andExpect(status().isOk())
+				.andExpect(header().exists(HttpHeaders.ETAG))
+				.andExpect(content().string("{\"" + DATE + "\":[\"17:20:00\"]}"));
+	}
+
+	@Test
+	void anUnknownResourceIsRejectedEvenWithAMatchingTag() throws Exception {
+		String tag = mockMvc.perform(get("/api/bookings/available-slots").param("date", DATE.toString())
+						.param("resourceId", "1"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(get("/api/bookings/available-slots").param("date", DATE.toString())
+						.param("resourceId", "99").header(HttpHeaders.IF_NONE_MATCH, tag))
+				.andExpect(status().isBadRequest());
+		verify(bookingService, never()).getAvailableSlots(99L, DATE);
+	}
+
+	private static BookableResource resource(long id, LocalTime opens) {
+		ScheduleWindow window = new ScheduleWindow();
+		window.setStartTime(opens);
+		window.setEndTime(opens.plusHours(1));
+		window.setSlotMinutes(20);
+		window.setCapacity(1);
+		BookableResource resource = new BookableResource();
+		resource.setId(id);
+		resource.setName("vehicle-" + id);
+		resource.replaceWindows(List.of(window));
+		return resource;
+	}
+}
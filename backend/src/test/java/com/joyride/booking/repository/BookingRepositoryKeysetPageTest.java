@@ -0,0 +1,124 @@
+package com.joyride.booking.repository;
+
+import com.joyride.booking.EmbeddedPostgresConfig;
+import com.joyride.booking.dto.BookingCursor;
+import com.joyride.booking.dto.BookingFilter;
+import com.joyride.booking.dto.BookingResponse;
+import com.joyride.booking.model.Booking;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedPostgresConfig.class)
+class BookingRepositoryKeysetPageTest {
+
+	private static final int PAGE_SIZE = 7;
+
+	@Autowired
+	private BookingRepository bookingRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Long riderId;
+
+	@BeforeEach
+	void seedHistoryWithTiedTimestamps() {
+		riderId = jdbcTemplate.queryForObject("INSERT INTO users (username, email, password, role, enabled) "
+				+ "VALUES ('rider', 'rider@example.com', 'x', 'USER', true) RETURNING id", Long.class);
+		Long otherId = jdbcTemplate.queryForObject("INSERT INTO users (username, email, password, role, enabled) "
+				+ "VALUES ('other', 'other@example.com', 'x', 'USER', true) RETURNING id", Long.class);
+		// Each slot was booked and cancelled twice before the confirmed booking, so every
+		// timestamp appears three times and pages must break ties on id.
+		jdbcTemplate.update("INSERT INTO bookings (user_id, booking_date_time, duration_minutes, status, created_at, updated_at) "
+				+ "SELECT ?, TIMESTAMP '2024-01-01 06:00' + (n / 3) * INTERVAL '1 day', 20, "
+				+ "CASE WHEN n % 3 = 2 THEN 'CONFIRMED' ELSE 'CANCELLED' END, now(), now() "
+				+ "FROM generate_series(0, 89) AS n", riderId);
+		jdbcTemplate.update("INSERT INTO bookings (user_id, booking_date_time, duration_minutes, status, created_at, updated_at) "
+				+ "SELECT ?, TIMESTAMP '2024-01-01 07:00' + n * INTERVAL '1 day', 20, 'CONFIRMED', now(), now() "
+				+ "FROM generate_series(0, 29) AS n", otherId);
+	}
+
+	@Test
+	void walkingUserPagesVisitsEveryBookingOnceInOrder() {
+		BookingFilter filter = BookingFilter.of(null, null, null);
+
+		List<BookingResponse> seen = walk(filter, true);
+
+		assertThat(seen).hasSize(90);
+		assertThat(seen).extracting(BookingResponse::getId).doesNotHaveDuplicates();
+		assertThat(seen).extracting(BookingResponse::getUsername).containsOnly("rider");
+		assertThat(seen).extracting(BookingResponse::getBookingDateTime).isSorted();
+	}
+
+	@Test
+	void statusAndDateFiltersNarrowThePages() {
+		BookingFilter filter = BookingFilter.of(List.of(Booking.BookingStatus.CONFIRMED),
+				LocalDate.of(2024, 1, 11), LocalDate.of(2024, 1, 20));
+
+		List<BookingResponse> mine = walk(filter, true);
+		List<BookingResponse> everyone = walk(filter, false);
+
+		assertThat(mine).hasSize(10).extracting(BookingResponse::getStatus).containsOnly("CONFIRMED");
+		assertThat(mine.get(0).getBookingDateTime()).isEqualTo(LocalDate.of(2024, 1, 11).atTime(6, 0));
+		assertThat(everyone).hasSize(20).extracting(BookingResponse::getUsername).contains("rider", "other");
+	}
+
+	@Test
+	void cursorRoundTripsAndRejectsGarbage() {
+		BookingCursor cursor = new BookingCursor(LocalDate.of(2024, 1, 1).atTime(6, 20), 42L);
+
+		assertThat(BookingCursor.decode(cursor.encode())).isEqualTo(cursor);
+		assertThatThrownBy(() -> BookingCursor.decode("not-a-cursor")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void userPageQueryUsesIndex() {
+		jdbcTemplate.execute("SELECT create_booking_partition(month::date) "
+				+ "FROM generate_series(DATE '2024-01-01', DATE '2025-12-01', INTERVAL '1 month') AS month");
+		// Bury the rider's history among a busy rider's cancellations.
+		jdbcTemplate.update("INSERT INTO bookings (user_id, booking_date_time, duration_minutes, status, created_at, updated_at) "
+				+ "SELECT u.id, TIMESTAMP '2024-01-01 06:00' + n * INTERVAL '20 minutes', 20, 'CANCELLED', now(), now() "
+				+ "FROM users u, generate_series(0, 49999) AS n WHERE u.username = 'other'");
+		jdbcTemplate.execute("ANALYZE bookings");
+		String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN SELECT id FROM bookings "
+				+ "WHERE user_id = " + riderId + " AND booking_date_time < TIMESTAMP '2030-01-01' "
+				+ "AND (booking_date_time, id) > (TIMESTAMP '2024-01-05 06:00', 10) "
+				+ "ORDER BY booking_date_time, id LIMIT 8", String.class));
+
+		// Every partition reads its copy of the index in order and Merge Append keeps it,
+		// so there is no Sort node, only the Merge Append's sort key.
+		assertThat(plan).contains("user_id_booking_date_time_id_idx").doesNotContain("Sort  (", "Seq Scan");
+	}
+
+	private List<BookingResponse> walk(BookingFilter filter, boolean ownOnly) {
+		List<BookingResponse> seen = new ArrayList<>();
+		BookingCursor after = new BookingCursor(filter.getFrom(), 0L);
+		while (true) {
+			List<BookingResponse> page = ownOnly
+					? bookingRepository.findUserPage(riderId, filter.getStatuses(), filter.getTo(),
+							after.getBookingDateTime(), after.getId(), Limit.of(PAGE_SIZE))
+					: bookingRepository.findPage(filter.getStatuses(), filter.getTo(),
+							after.getBookingDateTime(), after.getId(), Limit.of(PAGE_SIZE));
+			seen.addAll(page);
+			if (page.size() < PAGE_SIZE) {
+				return seen;
+			}
+			after = BookingCursor.decode(BookingCursor.after(page.get(PAGE_SIZE - 1)).encode());
+		}
+	}
+}
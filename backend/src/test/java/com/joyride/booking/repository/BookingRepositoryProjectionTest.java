@@ -0,0 +1,84 @@
+package com.joyride.booking.repository;
+
+import com.joyride.booking.EmbeddedPostgresConfig;
+import com.joyride.booking.dto.BookingResponse;
+import com.joyride.booking.model.Booking;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedPostgresConfig.class)
+class BookingRepositoryProjectionTest {
+
+	private static final int RIDERS = 25;
+	private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 12, 0, 0);
+
+	@Autowired
+	private BookingRepository bookingRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	private Statistics statistics;
+
+	private Long firstRiderId;
+
+	@BeforeEach
+	void seedOneBookingPerRider() {
+		jdbcTemplate.update("INSERT INTO users (username, email, password, role, enabled) "
+				+ "SELECT 'rider' || n, 'rider' || n || '@example.com', 'x', 'USER', true "
+				+ "FROM generate_series(1, ?) AS n", RIDERS);
+		jdbcTemplate.update("INSERT INTO bookings (user_id, booking_date_time, duration_minutes, status, created_at, updated_at) "
+				+ "SELECT u.id, TIMESTAMP '2024-03-12 09:00' + (row_number() OVER (ORDER BY u.id) - 1) * INTERVAL '20 minutes', "
+				+ "20, 'CONFIRMED', now(), now() FROM users u");
+		firstRiderId = jdbcTemplate.queryForObject("SELECT min(id) FROM users", Long.class);
+		jdbcTemplate.update("INSERT INTO bookings (user_id, booking_date_time, duration_minutes, status, created_at, updated_at) "
+				+ "VALUES (?, TIMESTAMP '2024-03-13 09:00', 20, 'CANCELLED', now(), now())", firstRiderId);
+
+		entityManager.clear();
+		statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void dailyProjectionIssuesSingleStatement() {
+		List<BookingResponse> bookings = bookingRepository.findResponsesByDateRange(DAY, DAY.plusDays(1));
+
+		assertThat(bookings).hasSize(RIDERS);
+		assertThat(bookings.get(0).getUsername()).isEqualTo("rider1");
+		assertThat(bookings.get(0).getStatus()).isEqualTo("CONFIRMED");
+		assertThat(bookings).extracting(BookingResponse::getBookingDateTime).isSorted();
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+	}
+
+	@Test
+	void userProjectionIssuesSingleStatement() {
+		List<BookingResponse> bookings = bookingRepository.findUserPage(firstRiderId,
+				EnumSet.allOf(Booking.BookingStatus.class), DAY.plusYears(1), DAY.minusYears(1), 0L, Limit.of(10));
+
+		assertThat(bookings).extracting(BookingResponse::getStatus).containsExactly("CONFIRMED", "CANCELLED");
+		assertThat(bookings).extracting(BookingResponse::getUsername).containsOnly("rider1");
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+	}
+}
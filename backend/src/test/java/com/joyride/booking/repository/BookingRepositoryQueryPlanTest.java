@@ -0,0 +1,151 @@
+package com.joyride.booking.repository;
+
+import com.joyride.booking.EmbeddedPostgresConfig;
+import com.joyride.booking.dto.BookingResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedPostgresConfig.class)
+class BookingRepositoryQueryPlanTest {
+
+	private static final int BOOKING_COUNT = 200_000;
+	private static final LocalDate DAY = LocalDate.of(2024, 3, 12);
+
+	@Autowired
+	private BookingRepository bookingRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void fillBookingsTable() {
+		Long userId = jdbcTemplate.queryForObject(
+				"INSERT INTO users (username, email, password, role, enabled) "
+						+ "VALUES ('rider', 'rider@example.com', 'x', 'USER', true) RETURNING id", Long.class);
+		jdbcTemplate.execute("SELECT create_booking_partition(month::date) "
+				+ "FROM generate_series(DATE '2020-01-01', DATE '2027-08-01', INTERVAL '1 month') AS month");
+		// One booking every 20 minutes from 2020 onwards, ~7.6 years of history.
+		jdbcTemplate.update("INSERT INTO bookings (user_id, booking_date_time, duration_minutes, status, created_at, updated_at) "
+				+ "SELECT ?, TIMESTAMP '2020-01-01 00:00' + n * INTERVAL '20 minutes', 20, "
+				+ "CASE WHEN n % 10 = 0 THEN 'CANCELLED' ELSE 'CONFIRMED' END, now(), now() "
+				+ "FROM generate_series(0, ? - 1) AS n", userId, BOOKING_COUNT);
+		jdbcTemplate.execute("ANALYZE bookings");
+	}
+
+	@Test
+	void dayRangeQueryUsesIndex() {
+		String plan = explain("SELECT * FROM bookings WHERE booking_date_time >= TIMESTAMP '2024-03-12 00:00' "
+				+ "AND booking_date_time < TIMESTAMP '2024-03-13 00:00' AND status = 'CONFIRMED'");
+
+		assertThat(plan).contains("Index").doesNotContain("Seq Scan");
+	}
+
+	@Test
+	void dayRangeQueryReadsOnlyItsMonthsPartition() {
+		String plan = explain("SELECT * FROM bookings WHERE booking_date_time >= TIMESTAMP '2024-03-12 00:00' "
+				+ "AND booking_date_time < TIMESTAMP '2024-03-13 00:00' AND status = 'CONFIRMED'");
+
+		assertThat(plan).contains("bookings_y2024m03")
+				.doesNotContain("bookings_y2024m02", "bookings_y2024m04", "bookings_default");
+	}
+
+	@Test
+	void boundDayRangeIsPrunedAtExecution() {
+		// Hibernate binds the range, so a cached generic plan prunes when it runs.
+		jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+		jdbcTemplate.execute("PREPARE day_range (timestamp, timestamp) AS SELECT * FROM bookings "
+				+ "WHERE booking_date_time >= $1 AND booking_date_time < $2 AND status = 'CONFIRMED'");
+		try {
+			String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN EXECUTE day_range("
+					+ "TIMESTAMP '2024-03-12 00:00', TIMESTAMP '2024-03-13 00:00')", String.class));
+
+			assertThat(plan).contains("Subplans Removed");
+		} finally {
+			jdbcTemplate.execute("DEALLOCATE day_range");
+		}
+	}
+
+	@Test
+	void functionWrappedDateQueryScansWholeTable() {
+		String plan = explain("SELECT * FROM bookings WHERE DATE(booking_date_time) = DATE '2024-03-12' "
+				+ "AND status = 'CONFIRMED'");
+
+		assertThat(plan).contains("Seq Scan");
+	}
+
+	@Test
+	void dayViewReturnsConfirmedBookingsOfTheDay() {
+		List<BookingResponse> bookings = bookingRepository.findResponsesByDateRange(
+				DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay());
+
+		assertThat(bookings).isNotEmpty().hasSizeLessThan(72)
+				.allSatisfy(booking -> {
+					assertThat(booking.getBookingDateTime().toLocalDate()).isEqualTo(DAY);
+					assertThat(booking.getStatus()).isEqualTo("CONFIRMED");
+				});
+	}
+
+	@Test
+	void expiredHoldsAreFoundThroughThePartialIndex() {
+		// One in 10,000 bookings is still held.
+		jdbcTemplate.update("UPDATE bookings SET status = 'HELD', hold_expires_at = booking_date_time WHERE id % 10000 = 0");
+		jdbcTemplate.execute("ANALYZE bookings");
+
+		String plan = explain("SELECT id, hold_expires_at FROM bookings WHERE status = 'HELD' "
+				+ "AND hold_expires_at <= TIMESTAMP '2030-01-01 00:00' ORDER BY hold_expires_at LIMIT 500");
+
+		// Each partition has its own copy of the index, named after the partition. Empty
+		// partitions are cheaper to scan than to probe.
+		assertThat(plan).contains("hold_expires_at_idx");
+		Matcher seqScan = Pattern.compile("Seq Scan on (\\w+)").matcher(plan);
+		while (seqScan.find()) {
+			assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM " + seqScan.group(1), Long.class)).isZero();
+		}
+		assertThat(bookingRepository.findExpiredHolds(LocalDateTime.of(2030, 1, 1, 0, 0), Limit.of(500))).hasSize(20);
+	}
+
+	@Test
+	void confirmedBookingsAreWalkedThroughThePartialIndex() {
+		// The completion job's chunk query, years behind on a checkpoint in March 2024.
+		String plan = explain("SELECT id, booking_date_time FROM bookings WHERE status = 'CONFIRMED' "
+				+ "AND booking_date_time < TIMESTAMP '2027-01-01 00:00' "
+				+ "AND booking_date_time >= TIMESTAMP '2024-03-12 06:00' "
+				+ "AND (booking_date_time, id) > (TIMESTAMP '2024-03-12 06:00', 0) "
+				+ "ORDER BY booking_date_time, id LIMIT 1000");
+
+		assertThat(parentIndexes(plan)).isNotEmpty().containsOnly("idx_bookings_confirmed_date_time_id");
+		assertThat(plan).doesNotContain("Sort  (", "bookings_y2024m02");
+	}
+
+	// Partitions name their copies of an index after themselves; this maps them back.
+	private List<String> parentIndexes(String plan) {
+		List<String> parents = new ArrayList<>();
+		Matcher index = Pattern.compile("(?:using|Index Scan on) (\\w+)").matcher(plan);
+		while (index.find()) {
+			parents.add(jdbcTemplate.queryForObject("SELECT inhparent::regclass::text FROM pg_inherits "
+					+ "WHERE inhrelid = ?::regclass", String.class, index.group(1)));
+		}
+		return parents;
+	}
+
+	private String explain(String sql) {
+		return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+	}
+}
@@ -0,0 +1,88 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.model.AdminAvailability;
+import com.joyride.booking.repository.AdminAvailabilityRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AvailabilityCalendarTest {
+
+	private final LocalDate today = LocalDate.now();
+	private final AdminAvailabilityRepository repository = mock(AdminAvailabilityRepository.class);
+	private final AvailabilityCalendar calendar = new AvailabilityCalendar(repository, 30);
+
+	@Test
+	void answersFromMemoryAfterASingleLoad() {
+		when(repository.findByAvailableDateBetween(today, today.plusDays(29)))
+				.thenReturn(List.of(open(today.plusDays(1), true), open(today.plusDays(2), false)));
+
+		for (int i = 0; i < 100; i++) {
+			assertThat(calendar.isOpen(today.plusDays(1))).isTrue();
+			assertThat(calendar.isOpen(today.plusDays(2))).isFalse();
+			assertThat(calendar.isOpen(today.plusDays(3))).isFalse();
+		}
+
+		verify(repository, times(1)).findByAvailableDateBetween(any(), any());
+		verify(repository, never()).existsByAvailableDateAndIsAvailable(any(), anyBoolean());
+	}
+
+	@Test
+	void refreshRereadsOnlyTheChangedRange() {
+		when(repository.findByAvailableDateBetween(today, today.plusDays(29)))
+				.thenReturn(List.of(open(today.plusDays(1), true), open(today.plusDays(5), true)));
+		calendar.warmUp();
+
+		when(repository.findByAvailableDateBetween(today.plusDays(1), today.plusDays(2)))
+				.thenReturn(List.of(open(today.plusDays(1), false), open(today.plusDays(2), true)));
+		calendar.refresh(today.plusDays(1), today.plusDays(2));
+
+		assertThat(calendar.isOpen(today.plusDays(1))).isFalse();
+		assertThat(calendar.isOpen(today.plusDays(2))).isTrue();
+		assertThat(calendar.isOpen(today.plusDays(5))).isTrue();
+	}
+
+	@Test
+	void aReadOvertakenByALaterRefreshIsReadAgain() {
+		LocalDate day = today.plusDays(3);
+		when(repository.findByAvailableDateBetween(today, today.plusDays(29))).thenReturn(List.of());
+		calendar.warmUp();
+		AtomicInteger reads = new AtomicInteger();
+		when(repository.findByAvailableDateBetween(day, day)).thenAnswer(invocation -> {
+			if (reads.incrementAndGet() == 1) {
+				// Another refresh reads and publishes the newer state while this one is reading.
+				calendar.refresh(day, day);
+				return List.of(open(day, true));
+			}
+			return List.of(open(day, false));
+		});
+
+		calendar.refresh(day, day);
+
+		assertThat(calendar.isOpen(day)).isFalse();
+		assertThat(reads).hasValue(3);
+	}
+
+	@Test
+	void datesOutsideTheHorizonFallBackToTheDatabase() {
+		when(repository.findByAvailableDateBetween(any(), any())).thenReturn(List.of());
+		when(repository.existsByAvailableDateAndIsAvailable(today.plusDays(45), true)).thenReturn(true);
+
+		assertThat(calendar.isOpen(today.plusDays(45))).isTrue();
+		assertThat(calendar.isOpen(today.minusDays(1))).isFalse();
+		// A change beyond the horizon has nothing in memory to patch.
+		calendar.refresh(today.plusDays(40), today.plusDays(50));
+
+		verify(repository, times(1)).findByAvailableDateBetween(any(), any());
+	}
+
+	private static AdminAvailability open(LocalDate date, boolean available) {
+		return new AdminAvailability(null, date, available, null);
+	}
+}
@@ -0,0 +1,116 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.EmbeddedPostgresConfig;
+import com.joyride.booking.event.AvailabilityChangedEvent;
+import com.joyride.booking.event.ScheduleChangedEvent;
+import com.joyride.booking.model.BookableResource;
+import com.joyride.booking.repository.BookableResourceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AvailabilityNotifierTest {
+
+	private static final AvailabilityChangedEvent ALL_DATES = new AvailabilityChangedEvent(LocalDate.MIN, LocalDate.MAX);
+	private static final ScheduleChangedEvent ALL_SCHEDULES = new ScheduleChangedEvent(null);
+
+	private final DataSource dataSource = new EmbeddedPostgresConfig().dataSource();
+	private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+	private final ApplicationEventPublisher localEvents = mock(ApplicationEventPublisher.class);
+	private final ApplicationEventPublisher remoteEvents = mock(ApplicationEventPublisher.class);
+	private final AvailabilityNotifier local = new AvailabilityNotifier(jdbcTemplate, localEvents, dataSource::getConnection, true);
+	private final AvailabilityNotifier remote = new AvailabilityNotifier(jdbcTemplate, remoteEvents, dataSource::getConnection, true);
+
+	@AfterEach
+	void stop() {
+		local.stop();
+		remote.stop();
+	}
+
+	@Test
+	void otherInstancesRefreshThePublishedRange() {
+		local.start();
+		remote.start();
+		// Both have subscribed once they have announced a change to everything.
+		verify(localEvents, timeout(5_000)).publishEvent(ALL_DATES);
+		verify(remoteEvents, timeout(5_000)).publishEvent(ALL_DATES);
+
+		local.publish(LocalDate.of(2030, 3, 1), LocalDate.of(2030, 3, 31));
+
+		verify(remoteEvents, timeout(5_000)).publishEvent(
+				new AvailabilityChangedEvent(LocalDate.of(2030, 3, 1), LocalDate.of(2030, 3, 31)));
+		verify(localEvents, after(500).times(2)).publishEvent(any(Object.class));
+	}
+
+	@Test
+	void rolledBackChangesAreNeverAnnounced() throws Exception {
+		remote.start();
+		verify(remoteEvents, timeout(5_000)).publishEvent(ALL_DATES);
+
+		try (var connection = dataSource.getConnection()) {
+			connection.setAutoCommit(false);
+			try (var statement = connection.createStatement()) {
+				statement.execute("SELECT pg_notify('" + AvailabilityNotifier.CHANNEL + "', 'other|2030-03-01|2030-03-01')");
+			}
+			connection.rollback();
+		}
+
+		verify(remoteEvents, after(1_000).times(2)).publishEvent(any(Object.class));
+	}
+
+	@Test
+	void otherInstancesRecompileChangedSchedules() {
+		local.start();
+		remote.start();
+		verify(localEvents, timeout(5_000)).publishEvent(ALL_SCHEDULES);
+		verify(remoteEvents, timeout(5_000)).publishEvent(ALL_SCHEDULES);
+
+		local.publishScheduleChange(7L);
+
+		verify(remoteEvents, timeout(5_000)).publishEvent(new ScheduleChangedEvent(7L));
+		verify(localEvents, after(500).times(2)).publishEvent(any(Object.class));
+	}
+
+	@Test
+	void aResourceCreatedElsewhereBecomesBookable() throws Exception {
+		BookableResourceRepository resourceRepository = mock(BookableResourceRepository.class);
+		when(resourceRepository.findAllWithWindows()).thenReturn(List.of(SlotOccupancyIndexTest.resource(1L, 1)));
+		SlotEngine slotEngine = new SlotEngine(resourceRepository);
+		slotEngine.onReady();
+		CountDownLatch listening = new CountDownLatch(1);
+		CountDownLatch recompiled = new CountDownLatch(1);
+		AvailabilityNotifier relay = new AvailabilityNotifier(jdbcTemplate, event -> {
+			if (event instanceof ScheduleChangedEvent change) {
+				slotEngine.onScheduleChanged(change);
+				(change.getResourceId() == null ? listening : recompiled).countDown();
+			}
+		}, dataSource::getConnection, true);
+		try {
+			relay.start();
+			assertThat(listening.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThatThrownBy(() -> slotEngine.resolve(2L)).isInstanceOf(IllegalArgumentException.class);
+
+			when(resourceRepository.findAllWithWindows()).thenReturn(List.of(
+					SlotOccupancyIndexTest.resource(1L, 1), SlotOccupancyIndexTest.resource(2L, 1)));
+			remote.publishScheduleChange(2L);
+
+			assertThat(recompiled.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(slotEngine.resolve(2L)).isEqualTo(2L);
+		} finally {
+			relay.stop();
+		}
+	}
+}
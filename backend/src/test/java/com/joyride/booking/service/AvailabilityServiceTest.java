@@ -0,0 +1,110 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.EmbeddedPostgresConfig;
+import com.joyride.booking.dto.BulkAvailabilityRequest;
+import com.joyride.booking.dto.BulkAvailabilityResponse;
+import com.joyride.booking.repository.AdminAvailabilityRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({EmbeddedPostgresConfig.class, AvailabilityService.class})
+class AvailabilityServiceTest {
+
+	private static final Set<DayOfWeek> WEEKDAYS = EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY);
+
+	@Autowired
+	private AvailabilityService availabilityService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private AdminAvailabilityRepository availabilityRepository;
+
+	@MockitoBean
+	private AvailabilityNotifier availabilityNotifier;
+
+	@Test
+	void opensWeekdaysOfAMonthAndCountsOnlyRealChanges() {
+		// March 2030 has 21 weekdays.
+		BulkAvailabilityResponse opened = availabilityService.setAvailability(
+				request(LocalDate.of(2030, 3, 1), LocalDate.of(2030, 3, 31), WEEKDAYS, true));
+		BulkAvailabilityResponse again = availabilityService.setAvailability(
+				request(LocalDate.of(2030, 3, 1), LocalDate.of(2030, 3, 31), WEEKDAYS, true));
+
+		assertThat(opened.getDates()).isEqualTo(21);
+		assertThat(opened.getChanged()).isEqualTo(21);
+		assertThat(again.getChanged()).isZero();
+		assertThat(openDates()).isEqualTo(21);
+		assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM admin_availability "
+				+ "WHERE extract(isodow FROM available_date) > 5", Integer.class)).isZero();
+		verify(availabilityNotifier).publish(LocalDate.of(2030, 3, 1), LocalDate.of(2030, 3, 31));
+	}
+
+	@Test
+	void singleDateUpdatesTheExistingRowAndAnnouncesIt() {
+		availabilityService.setAvailability(LocalDate.of(2030, 3, 4), true);
+		availabilityService.setAvailability(LocalDate.of(2030, 3, 4), false);
+
+		assertThat(availabilityRepository.findAll()).singleElement()
+				.satisfies(availability -> assertThat(availability.isAvailable()).isFalse());
+		verify(availabilityNotifier, times(2)).publish(LocalDate.of(2030, 3, 4), LocalDate.of(2030, 3, 4));
+	}
+
+	@Test
+	void closingARangeOnlyTouchesDatesThatWereOpen() {
+		availabilityService.setAvailability(request(LocalDate.of(2030, 3, 1), LocalDate.of(2030, 3, 10), null, true));
+
+		// 1-10 March flip to closed, 11-15 March are new closed rows.
+		BulkAvailabilityResponse closed = availabilityService.setAvailability(
+				request(LocalDate.of(2030, 3, 1), LocalDate.of(2030, 3, 15), Set.of(), false));
+
+		assertThat(closed.getDates()).isEqualTo(15);
+		assertThat(closed.getChanged()).isEqualTo(15);
+		assertThat(openDates()).isZero();
+		assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM admin_availability", Integer.class)).isEqualTo(15);
+	}
+
+	@Test
+	void rejectsInvertedOrOversizedRanges() {
+		assertThatThrownBy(() -> availabilityService.setAvailability(
+				request(LocalDate.of(2030, 3, 2), LocalDate.of(2030, 3, 1), null, true)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> availabilityService.setAvailability(
+				request(LocalDate.of(2030, 1, 1), LocalDate.of(2031, 6, 1), null, true)))
+				.isInstanceOf(IllegalArgumentException.class);
+		verify(availabilityNotifier, never()).publish(any(), any());
+	}
+
+	private int openDates() {
+		return jdbcTemplate.queryForObject("SELECT count(*) FROM admin_availability WHERE is_available", Integer.class);
+	}
+
+	private static BulkAvailabilityRequest request(LocalDate from, LocalDate to, Set<DayOfWeek> days, boolean available) {
+		BulkAvailabilityRequest request = new BulkAvailabilityRequest();
+		request.setFrom(from);
+		request.setTo(to);
+		request.setDaysOfWeek(days);
+		request.setAvailable(available);
+		return request;
+	}
+}
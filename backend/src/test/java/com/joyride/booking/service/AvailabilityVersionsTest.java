@@ -0,0 +1,63 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.event.AvailabilityChangedEvent;
+import com.joyride.booking.event.ScheduleChangedEvent;
+import com.joyride.booking.event.SlotChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AvailabilityVersionsTest {
+
+	private static final LocalDate DATE = LocalDate.now().plusDays(10);
+
+	private final AvailabilityVersions versions = new AvailabilityVersions(Duration.ofSeconds(5));
+
+	@Test
+	void eTagsOnlyChangeForRangesThatSawAChange() {
+		String day = versions.slotsETag(1L, 1L, DATE, DATE);
+		String nextDay = versions.slotsETag(1L, 1L, DATE.plusDays(1), DATE.plusDays(1));
+		String week = versions.slotsETag(1L, 1L, DATE, DATE.plusDays(6));
+
+		versions.onSlotChanged(new SlotChangedEvent(1L, DATE.atTime(6, 0), 0, true));
+
+		assertThat(versions.slotsETag(1L, 1L, DATE, DATE)).isNotEqualTo(day);
+		assertThat(versions.slotsETag(1L, 1L, DATE.plusDays(1), DATE.plusDays(1))).isEqualTo(nextDay);
+		assertThat(versions.slotsETag(1L, 1L, DATE, DATE.plusDays(6))).isNotEqualTo(week);
+	}
+
+	@Test
+	void slotETagsDifferPerResourceAndScheduleVersion() {
+		String tag = versions.slotsETag(1L, 1L, DATE, DATE);
+
+		assertThat(versions.slotsETag(2L, 1L, DATE, DATE)).isNotEqualTo(tag);
+		assertThat(versions.slotsETag(1L, 2L, DATE, DATE)).isNotEqualTo(tag);
+		assertThat(versions.slotsETag(1L, 1L, DATE, DATE)).isEqualTo(tag);
+	}
+
+	@Test
+	void availabilityAndScheduleChangesMoveTheVersion() {
+		long before = versions.version(DATE, DATE);
+
+		versions.onAvailabilityChanged(new AvailabilityChangedEvent(DATE.minusDays(3), DATE));
+		long afterAvailability = versions.version(DATE, DATE);
+		versions.onAvailabilityChanged(new AvailabilityChangedEvent(LocalDate.MIN, LocalDate.MAX));
+		long afterEverything = versions.version(DATE, DATE);
+		versions.onScheduleChanged(new ScheduleChangedEvent(1L));
+
+		assertThat(afterAvailability).isGreaterThan(before);
+		assertThat(afterEverything).isGreaterThan(afterAvailability);
+		assertThat(versions.version(DATE, DATE)).isGreaterThan(afterEverything);
+	}
+
+	@Test
+	void eTagsAreStrongAndDifferAcrossRestarts() {
+		String tag = versions.availabilityETag(DATE, DATE);
+
+		assertThat(tag).startsWith("\"").endsWith("\"");
+		assertThat(new AvailabilityVersions(Duration.ofSeconds(5)).availabilityETag(DATE, DATE)).isNotEqualTo(tag);
+	}
+}
@@ -0,0 +1,201 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.event.BookingStatusChangedEvent;
+import com.joyride.booking.model.Booking;
+import com.joyride.booking.model.BookingAuditRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class BookingAuditLogTest {
+
+	private static final LocalDateTime SLOT = LocalDateTime.of(2030, 3, 4, 6, 0);
+
+	@TempDir
+	private Path directory;
+
+	@Test
+	void recordsAreReplayedInOrderAcrossSegmentsAndRestarts() throws IOException {
+		BookingAuditLog auditLog = newLog(DataSize.ofBytes(200), 64);
+		auditLog.start();
+		auditLog.onStatusChanged(change(1L, null, Booking.BookingStatus.HELD));
+		auditLog.onStatusChanged(change(1L, Booking.BookingStatus.HELD, Booking.BookingStatus.CONFIRMED));
+		auditLog.onStatusChanged(change(2L, null, Booking.BookingStatus.CONFIRMED));
+		auditLog.stop();
+
+		BookingAuditLog restarted = newLog(DataSize.ofBytes(200), 64);
+		restarted.start();
+		restarted.onStatusChanged(change(1L, Booking.BookingStatus.CONFIRMED, Booking.BookingStatus.CANCELLED));
+		restarted.stop();
+
+		assertThat(segments()).hasSizeGreaterThan(1);
+		assertThat(restarted.history(1L, null, null)).extracting(BookingAuditRecord::getFromStatus, BookingAuditRecord::getToStatus)
+				.containsExactly(
+						tuple(null, "HELD"),
+						tuple("HELD", "CONFIRMED"),
+						tuple("CONFIRMED", "CANCELLED"));
+		assertThat(restarted.history(2L, null, null)).singleElement()
+				.isEqualTo(new BookingAuditRecord(SLOT.minusDays(1), 2L, 7L, 3L, SLOT, 1, null, "CONFIRMED"));
+	}
+
+	@Test
+	void historyReadsOnlySegmentsThatOverlapTheBookingAndWindow() throws IOException {
+		BookingAuditLog auditLog = newLog(DataSize.ofMegabytes(1), 64);
+		auditLog.start();
+		auditLog.onStatusChanged(change(1L, null, Booking.BookingStatus.HELD, SLOT.minusDays(9)));
+		auditLog.onStatusChanged(change(1L, Booking.BookingStatus.HELD, Booking.BookingStatus.CONFIRMED,
+				SLOT.minusDays(9)));
+		auditLog.stop();
+		auditLog = newLog(DataSize.ofMegabytes(1), 64);
+		auditLog.start();
+		auditLog.onStatusChanged(change(2L, null, Booking.BookingStatus.CONFIRMED, SLOT.minusDays(2)));
+		auditLog.onStatusChanged(change(1L, Booking.BookingStatus.CONFIRMED, Booking.BookingStatus.CANCELLED,
+				SLOT.minusDays(1)));
+		auditLog.stop();
+
+		BookingAuditLog restarted = newLog(DataSize.ofMegabytes(1), 64);
+		restarted.start();
+		restarted.stop();
+		try (Stream<Path> files = Files.list(directory)) {
+			assertThat(files.filter(file -> file.toString().endsWith(".idx"))).hasSize(2);
+		}
+		// Any read of the first segment fails from now on.
+		Files.delete(segments().get(0));
+
+		assertThat(restarted.history(2L, null, null)).extracting(BookingAuditRecord::getToStatus)
+				.containsExactly("CONFIRMED");
+		assertThat(restarted.history(1L, SLOT.minusDays(5), null)).extracting(BookingAuditRecord::getToStatus)
+				.containsExactly("CANCELLED");
+		assertThat(restarted.history(1L, SLOT.minusDays(5), SLOT.minusDays(1))).isEmpty();
+		assertThatThrownBy(() -> restarted.history(1L, null, null)).isInstanceOf(UncheckedIOException.class);
+	}
+
+	@Test
+	void segmentsWithoutAnUpToDateIndexAreScannedOnStart() throws IOException {
+		BookingAuditLog auditLog = newLog(DataSize.ofMegabytes(1), 64);
+		auditLog.start();
+		auditLog.onStatusChanged(change(1L, null, Booking.BookingStatus.CONFIRMED));
+		auditLog.stop();
+		Path segment = segments().get(0);
+		Path index = directory.resolve(segment.getFileName().toString().replace(".log", ".idx"));
+		Files.delete(index);
+
+		BookingAuditLog restarted = newLog(DataSize.ofMegabytes(1), 64);
+		restarted.start();
+		restarted.stop();
+		assertThat(index).exists();
+		assertThat(restarted.history(1L, null, null)).hasSize(1);
+
+		// A record appended behind the index's back makes it stale.
+		auditLog = newLog(DataSize.ofMegabytes(1), 64);
+		auditLog.start();
+		auditLog.onStatusChanged(change(3L, null, Booking.BookingStatus.CONFIRMED));
+		auditLog.stop();
+		Path second = segments().get(1);
+		try (FileChannel source = FileChannel.open(segment, StandardOpenOption.READ);
+				FileChannel target = FileChannel.open(second, StandardOpenOption.WRITE)) {
+			target.transferFrom(source, target.size(), source.size());
+		}
+
+		BookingAuditLog rescanned = newLog(DataSize.ofMegabytes(1), 64);
+		rescanned.start();
+		rescanned.stop();
+		assertThat(rescanned.history(1L, null, null)).hasSize(2);
+	}
+
+	@Test
+	void replayStopsAtATornTail() throws IOException {
+		BookingAuditLog auditLog = newLog(DataSize.ofMegabytes(1), 64);
+		auditLog.start();
+		auditLog.onStatusChanged(change(1L, null, Booking.BookingStatus.CONFIRMED));
+		auditLog.onStatusChanged(change(2L, null, Booking.BookingStatus.CONFIRMED));
+		auditLog.stop();
+
+		Path segment = segments().get(0);
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3);
+		}
+
+		List<BookingAuditRecord> replayed = new ArrayList<>();
+		auditLog.replay(replayed::add);
+		assertThat(replayed).extracting(BookingAuditRecord::getBookingId).containsExactly(1L);
+	}
+
+	@Test
+	void concurrentProducersKeepTheirOrderAndCountWhatDoesNotFit() throws IOException {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		BookingAuditLog auditLog = newLog(registry, DataSize.ofMegabytes(1), 256);
+		auditLog.start();
+		int producers = 4;
+		int perProducer = 5_000;
+		CompletableFuture<?>[] running = IntStream.range(0, producers)
+				.mapToObj(producer -> CompletableFuture.runAsync(() -> {
+					for (int i = 0; i < perProducer; i++) {
+						// Each producer stands for one booking; seats number its changes.
+						auditLog.onStatusChanged(new BookingStatusChangedEvent((long) producer, 7L, 3L, SLOT, i,
+								null, Booking.BookingStatus.CONFIRMED, SLOT));
+					}
+				}))
+				.toArray(CompletableFuture[]::new);
+		CompletableFuture.allOf(running).join();
+		auditLog.stop();
+
+		// The small buffer wraps many times and may overflow; whatever was kept is in order.
+		Map<Long, Integer> lastSeat = new HashMap<>();
+		List<BookingAuditRecord> replayed = new ArrayList<>();
+		auditLog.replay(record -> {
+			assertThat(record.getSeat()).isGreaterThan(lastSeat.getOrDefault(record.getBookingId(), -1));
+			lastSeat.put(record.getBookingId(), record.getSeat());
+			replayed.add(record);
+		});
+		double dropped = registry.counter("bookings.audit.dropped").count();
+		assertThat(replayed.size() + dropped).isEqualTo(producers * perProducer);
+		assertThat(registry.counter("bookings.audit.written").count()).isEqualTo(replayed.size());
+	}
+
+	private BookingAuditLog newLog(DataSize segmentSize, int bufferSize) {
+		return newLog(new SimpleMeterRegistry(), segmentSize, bufferSize);
+	}
+
+	private BookingAuditLog newLog(SimpleMeterRegistry registry, DataSize segmentSize, int bufferSize) {
+		return new BookingAuditLog(registry, true, directory, segmentSize, bufferSize, 32,
+				Duration.ofMillis(1), Duration.ofMillis(10));
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.toString().endsWith(".log")).sorted().toList();
+		}
+	}
+
+	private static BookingStatusChangedEvent change(Long bookingId, Booking.BookingStatus from,
+			Booking.BookingStatus to) {
+		return change(bookingId, from, to, SLOT.minusDays(1));
+	}
+
+	private static BookingStatusChangedEvent change(Long bookingId, Booking.BookingStatus from,
+			Booking.BookingStatus to, LocalDateTime changedAt) {
+		return new BookingStatusChangedEvent(bookingId, 7L, 3L, SLOT, 1, from, to, changedAt);
+	}
+}
@@ -0,0 +1,119 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.EmbeddedPostgresConfig;
+import com.joyride.booking.dto.BookingResponse;
+import com.joyride.booking.event.BookingStatusChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Not transactional: every chunk commits on its own.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({EmbeddedPostgresConfig.class, SimpleMeterRegistry.class, AvailabilityCalendar.class, SlotEngine.class,
+		SlotOccupancyIndex.class, BookingService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingCompletionJobTest {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private BookingService bookingService;
+
+	private final List<Object> published = new CopyOnWriteArrayList<>();
+	private long userId;
+	private long resourceId;
+
+	@BeforeEach
+	void riderAndResource() {
+		userId = jdbcTemplate.queryForObject("INSERT INTO users (username, email, password, role, enabled) "
+				+ "VALUES ('rider', 'rider@example.com', 'x', 'USER', true) RETURNING id", Long.class);
+		resourceId = jdbcTemplate.queryForObject("SELECT min(id) FROM resources", Long.class);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.execute("DELETE FROM job_checkpoints");
+		jdbcTemplate.execute("DELETE FROM bookings");
+		jdbcTemplate.execute("DELETE FROM users");
+	}
+
+	@Test
+	void pastConfirmedBookingsAreCompletedInChunksAndTheCheckpointAdvances() {
+		LocalDateTime today = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0).withNano(0);
+		for (int day = 1; day <= 5; day++) {
+			booking(today.minusDays(day).withHour(6), "CONFIRMED");
+		}
+		long cancelled = booking(today.minusDays(1).withHour(17), "CANCELLED");
+		long upcoming = booking(today.plusDays(1).withHour(6), "CONFIRMED");
+		long lastPast = booking(today.minusDays(1).withHour(18), "CONFIRMED");
+
+		assertThat(newJob(2).completePastBookings()).isEqualTo(6);
+
+		assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM bookings WHERE status = 'COMPLETED'",
+				Integer.class)).isEqualTo(6);
+		assertThat(status(cancelled)).isEqualTo("CANCELLED");
+		assertThat(status(upcoming)).isEqualTo("CONFIRMED");
+		assertThat(jdbcTemplate.queryForObject("SELECT position_id FROM job_checkpoints WHERE name = ?",
+				Long.class, BookingCompletionJob.JOB_NAME)).isEqualTo(lastPast);
+		assertThat(published).hasSize(6).allSatisfy(event -> assertThat(event)
+				.isInstanceOfSatisfying(BookingStatusChangedEvent.class,
+						change -> assertThat(change.getTo().name()).isEqualTo("COMPLETED")));
+
+		// Nothing left before the checkpoint, so a second run has no work.
+		published.clear();
+		assertThat(newJob(2).completePastBookings()).isZero();
+		assertThat(published).isEmpty();
+	}
+
+	@Test
+	void completedRidesStayInTheDayView() {
+		LocalDateTime yesterday = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0).withNano(0).minusDays(1);
+		long morning = booking(yesterday.withHour(6), "CONFIRMED");
+		long evening = booking(yesterday.withHour(18), "CONFIRMED");
+		booking(yesterday.withHour(12), "CANCELLED");
+
+		assertThat(newJob(10).completePastBookings()).isEqualTo(2);
+
+		assertThat(bookingService.getAllBookingsForDate(yesterday.toLocalDate()))
+				.extracting(BookingResponse::getId, BookingResponse::getStatus)
+				.containsExactly(tuple(morning, "COMPLETED"), tuple(evening, "COMPLETED"));
+	}
+
+	private BookingCompletionJob newJob(int batchSize) {
+		return new BookingCompletionJob(jdbcTemplate, new TransactionTemplate(transactionManager), published::add,
+				new SimpleMeterRegistry(), batchSize, Duration.ofHours(1));
+	}
+
+	private long booking(LocalDateTime slot, String status) {
+		return jdbcTemplate.queryForObject("INSERT INTO bookings (user_id, resource_id, booking_date_time, seat, "
+				+ "duration_minutes, status, created_at, updated_at) VALUES (?, ?, ?, 0, 20, ?, now(), now()) "
+				+ "RETURNING id", Long.class, userId, resourceId, slot, status);
+	}
+
+	private String status(long bookingId) {
+		return jdbcTemplate.queryForObject("SELECT status FROM bookings WHERE id = ?", String.class, bookingId);
+	}
+}
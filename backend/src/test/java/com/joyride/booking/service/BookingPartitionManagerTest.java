@@ -0,0 +1,101 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.EmbeddedPostgresConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Not transactional: partitions are detached and dropped like in production.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedPostgresConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingPartitionManagerTest {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@TempDir
+	private Path archiveDirectory;
+
+	private long userId;
+
+	@BeforeEach
+	void rider() {
+		userId = jdbcTemplate.queryForObject("INSERT INTO users (username, email, password, role, enabled) "
+				+ "VALUES ('rider', 'rider@example.com', 'x', 'USER', true) RETURNING id", Long.class);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.execute("DELETE FROM bookings");
+		jdbcTemplate.execute("DELETE FROM users");
+	}
+
+	@Test
+	void partitionsPastTheRetentionAreExportedAndDropped() throws IOException {
+		jdbcTemplate.execute("SELECT create_booking_partition(DATE '2021-05-01')");
+		long old = booking(LocalDateTime.of(2021, 5, 14, 6, 0));
+		long recent = booking(LocalDateTime.now().withNano(0));
+
+		assertThat(newManager(12).archiveExpiredPartitions()).isEqualTo(1);
+
+		assertThat(jdbcTemplate.queryForObject("SELECT to_regclass('bookings_y2021m05') IS NULL", Boolean.class))
+				.isTrue();
+		assertThat(jdbcTemplate.queryForList("SELECT id FROM bookings", Long.class)).containsExactly(recent);
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(
+				archiveDirectory.resolve("bookings_y2021m05.csv.gz")))) {
+			String csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+			assertThat(csv.lines()).hasSize(2).first().asString().startsWith("id,user_id,");
+			assertThat(csv.lines().skip(1)).singleElement().asString().startsWith(old + "," + userId + ",");
+		}
+		assertThat(archiveDirectory.resolve("bookings_y2021m05.csv.gz.tmp")).doesNotExist();
+	}
+
+	@Test
+	void newPartitionsTakeTheirBookingsOverFromTheDefaultPartition() {
+		YearMonth far = YearMonth.now().plusMonths(14);
+		long booking = booking(far.atDay(3).atTime(17, 0));
+		assertThat(partitionOf(booking)).isEqualTo("bookings_default");
+
+		assertThat(newManager(14).createUpcomingPartitions()).isPositive();
+
+		assertThat(partitionOf(booking)).isEqualTo("bookings_y%dm%02d".formatted(far.getYear(), far.getMonthValue()));
+		assertThat(newManager(14).createUpcomingPartitions()).isZero();
+	}
+
+	private BookingPartitionManager newManager(int monthsAhead) {
+		return new BookingPartitionManager(jdbcTemplate, new SimpleMeterRegistry(), monthsAhead, 24, archiveDirectory);
+	}
+
+	private long booking(LocalDateTime slot) {
+		return jdbcTemplate.queryForObject("INSERT INTO bookings (user_id, booking_date_time, duration_minutes, "
+				+ "status, created_at, updated_at) VALUES (?, ?, 20, 'CONFIRMED', now(), now()) RETURNING id",
+				Long.class, userId, slot);
+	}
+
+	private String partitionOf(long bookingId) {
+		return jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM bookings WHERE id = ?",
+				String.class, bookingId);
+	}
+}
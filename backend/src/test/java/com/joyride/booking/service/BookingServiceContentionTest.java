@@ -0,0 +1,189 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.event.SlotChangedEvent;
+import com.joyride.booking.model.AdminAvailability;
+import com.joyride.booking.model.BookableResource;
+import com.joyride.booking.model.BookedSeat;
+import com.joyride.booking.model.Booking;
+import com.joyride.booking.model.User;
+import com.joyride.booking.repository.AdminAvailabilityRepository;
+import com.joyride.booking.repository.BookableResourceRepository;
+import com.joyride.booking.repository.BookingRepository;
+import com.joyride.booking.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class BookingServiceContentionTest {
+
+	private static final int THREADS = 32;
+	private static final int ATTEMPTS_PER_THREAD = 2_000;
+	private static final int DAYS = 30;
+
+	private static final long RESOURCE = 1L;
+
+	/** Stand-in for the partial unique index: one confirmed booking per seat of a slot. */
+	private final Map<String, Booking> confirmed = new ConcurrentHashMap<>();
+	private final AtomicInteger constraintViolations = new AtomicInteger();
+	private final AtomicLong ids = new AtomicLong();
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private BookingService bookingService;
+
+	private void setUp(int capacity) {
+		BookingRepository bookingRepository = mock(BookingRepository.class);
+		AdminAvailabilityRepository availabilityRepository = mock(AdminAvailabilityRepository.class);
+		UserRepository userRepository = mock(UserRepository.class);
+		BookableResourceRepository resourceRepository = mock(BookableResourceRepository.class);
+		ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+		when(resourceRepository.findAllWithWindows()).thenReturn(List.of(SlotOccupancyIndexTest.resource(RESOURCE, capacity)));
+		SlotEngine slotEngine = new SlotEngine(resourceRepository);
+		SlotOccupancyIndex index = new SlotOccupancyIndex(bookingRepository, slotEngine, 1000, Duration.ofHours(1));
+
+		when(availabilityRepository.findByAvailableDateBetween(any(), any())).thenAnswer(invocation -> {
+			List<AdminAvailability> open = new ArrayList<>();
+			for (LocalDate date = invocation.getArgument(0); !date.isAfter(invocation.getArgument(1)); date = date.plusDays(1)) {
+				open.add(new AdminAvailability(null, date, true, null));
+			}
+			return open;
+		});
+		when(bookingRepository.findBookedSeats(anyLong(), any(), any())).thenAnswer(invocation -> {
+			LocalDateTime start = invocation.getArgument(1);
+			LocalDateTime end = invocation.getArgument(2);
+			return confirmed.values().stream()
+					.filter(booking -> !booking.getBookingDateTime().isBefore(start) && booking.getBookingDateTime().isBefore(end))
+					.map(booking -> new BookedSeat(booking.getBookingDateTime(), booking.getSeat()))
+					.toList();
+		});
+		when(bookingRepository.isSeatTaken(anyLong(), any(), anyInt())).thenAnswer(invocation ->
+				confirmed.containsKey(invocation.getArgument(1) + "#" + invocation.getArgument(2)));
+		when(bookingRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+			Booking booking = invocation.getArgument(0);
+			if (confirmed.putIfAbsent(booking.getBookingDateTime() + "#" + booking.getSeat(), booking) != null) {
+				constraintViolations.incrementAndGet();
+				throw new DataIntegrityViolationException("uk_bookings_active_seat");
+			}
+			booking.setId(ids.incrementAndGet());
+			return booking;
+		});
+		// No transaction here, so deliver the "after commit" event straight away.
+		doAnswer(invocation -> {
+			index.onSlotChanged(invocation.getArgument(0, SlotChangedEvent.class));
+			return null;
+		}).when(eventPublisher).publishEvent(any(SlotChangedEvent.class));
+
+		when(userRepository.getReferenceById(any())).thenAnswer(invocation -> {
+			User user = new User();
+			user.setId(invocation.getArgument(0));
+			return user;
+		});
+
+		when(resourceRepository.getReferenceById(any())).thenAnswer(invocation -> {
+			BookableResource resource = new BookableResource();
+			resource.setId(invocation.getArgument(0));
+			return resource;
+		});
+
+		bookingService = new BookingService(bookingRepository, new AvailabilityCalendar(availabilityRepository, 400), userRepository,
+				resourceRepository, slotEngine, index, eventPublisher, meterRegistry, Duration.ofMinutes(5));
+	}
+
+	@ParameterizedTest(name = "capacity {0}")
+	@ValueSource(ints = {1, 3})
+	void concurrentBookingsNeverOverfillASlot(int capacity) throws Exception {
+		setUp(capacity);
+		List<LocalDateTime> slots = futureSlots();
+		AtomicInteger successes = new AtomicInteger();
+		AtomicInteger conflicts = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+		for (int t = 0; t < THREADS; t++) {
+			long userId = t;
+			pool.submit(() -> {
+				start.await();
+				for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+					LocalDateTime slot = slots.get(ThreadLocalRandom.current().nextInt(slots.size()));
+					try {
+						bookingService.createBooking(userId, null, slot, null);
+						successes.incrementAndGet();
+					} catch (IllegalStateException e) {
+						conflicts.incrementAndGet();
+					}
+				}
+				return null;
+			});
+		}
+
+		start.countDown();
+		pool.shutdown();
+		assertThat(pool.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+		assertThat(successes.get()).isEqualTo(slots.size() * capacity).isEqualTo(confirmed.size());
+		assertThat(successes.get() + conflicts.get()).isEqualTo(THREADS * ATTEMPTS_PER_THREAD);
+		assertThat(constraintViolations.get()).isZero();
+		assertThat(meterRegistry.counter("bookings.conflicts", "stage", "claim").count()).isEqualTo(conflicts.get());
+	}
+
+	@Test
+	void seatsBookedThroughAnotherInstanceAreSkipped() {
+		setUp(3);
+		LocalDateTime slot = futureSlots().get(0);
+		bookingService.createBooking(1L, null, slot, null);
+		// Another instance books seats 1 and 2; this one's index still shows them free.
+		for (int seat = 1; seat <= 2; seat++) {
+			Booking elsewhere = new Booking();
+			elsewhere.setBookingDateTime(slot);
+			elsewhere.setSeat(seat);
+			confirmed.put(slot + "#" + seat, elsewhere);
+		}
+		confirmed.remove(slot + "#0");
+
+		Booking booked = bookingService.createBooking(2L, null, slot, null);
+
+		assertThat(booked.getSeat()).isZero();
+		assertThat(constraintViolations.get()).isZero();
+		assertThat(meterRegistry.counter("bookings.conflicts", "stage", "stale").count()).isEqualTo(1);
+	}
+
+	private static List<LocalDateTime> futureSlots() {
+		List<LocalDateTime> slots = new ArrayList<>();
+		for (int day = 1; day <= DAYS; day++) {
+			LocalDate date = LocalDate.now().plusDays(day);
+			for (LocalTime time = LocalTime.of(6, 0); time.isBefore(LocalTime.of(7, 30)); time = time.plusMinutes(20)) {
+				slots.add(date.atTime(time));
+			}
+			for (LocalTime time = LocalTime.of(17, 0); time.isBefore(LocalTime.of(18, 30)); time = time.plusMinutes(20)) {
+				slots.add(date.atTime(time));
+			}
+		}
+		return slots;
+	}
+}
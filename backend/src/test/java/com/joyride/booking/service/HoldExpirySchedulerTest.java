@@ -0,0 +1,51 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.event.HoldPlacedEvent;
+import com.joyride.booking.repository.BookingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class HoldExpirySchedulerTest {
+
+	private final BookingService bookingService = mock(BookingService.class);
+	private final HoldExpiryScheduler scheduler = new HoldExpiryScheduler(
+			bookingService, mock(BookingRepository.class), Duration.ofMillis(200));
+
+	@AfterEach
+	void stop() {
+		scheduler.stop();
+	}
+
+	@Test
+	void holdsExpireWhenDueAndInExpiryOrder() {
+		scheduler.start();
+		LocalDateTime now = LocalDateTime.now();
+		scheduler.onHoldPlaced(new HoldPlacedEvent(2L, now.plusSeconds(60)));
+		scheduler.onHoldPlaced(new HoldPlacedEvent(1L, now.plusNanos(300_000_000)));
+
+		verify(bookingService, after(100).never()).expireHolds(any());
+		verify(bookingService, timeout(2_000)).expireHolds(List.of(1L));
+		verify(bookingService, after(200).times(1)).expireHolds(any());
+		assertThat(scheduler.pending()).isOne();
+	}
+
+	@Test
+	void failedExpiriesAreRetried() {
+		when(bookingService.expireHolds(List.of(1L)))
+				.thenThrow(new IllegalStateException("connection reset"))
+				.thenReturn(1);
+		scheduler.start();
+		scheduler.onHoldPlaced(new HoldPlacedEvent(1L, LocalDateTime.now()));
+
+		verify(bookingService, timeout(2_000).times(2)).expireHolds(List.of(1L));
+		assertThat(scheduler.pending()).isZero();
+	}
+}
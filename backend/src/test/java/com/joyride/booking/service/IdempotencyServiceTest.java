@@ -0,0 +1,129 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.EmbeddedPostgresConfig;
+import com.joyride.booking.dto.BookingRequest;
+import com.joyride.booking.dto.BookingResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyServiceTest {
+
+	private static final LocalDateTime SLOT = LocalDateTime.of(2030, 3, 4, 6, 0);
+
+	private final DataSource dataSource = new EmbeddedPostgresConfig().dataSource();
+	private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+	private final AtomicInteger bookings = new AtomicInteger();
+
+	@BeforeEach
+	void createTable() {
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS idempotency_keys (id VARCHAR(150) PRIMARY KEY, "
+				+ "request_hash VARCHAR(64) NOT NULL, response TEXT, created_at TIMESTAMP NOT NULL)");
+		jdbcTemplate.execute("TRUNCATE idempotency_keys");
+	}
+
+	@Test
+	void retriesReturnTheFirstResponseEvenAfterARestart() {
+		IdempotencyService service = newService();
+		BookingResponse first = service.createOnce(1L, "key-1", request("window seat"), this::book);
+		BookingResponse cached = service.createOnce(1L, "key-1", request("window seat"), this::book);
+		BookingResponse restarted = newService().createOnce(1L, "key-1", request("window seat"), this::book);
+
+		assertThat(bookings).hasValue(1);
+		assertThat(cached).isEqualTo(first);
+		assertThat(restarted).isEqualTo(first);
+		// Keys belong to their user.
+		newService().createOnce(2L, "key-1", request("window seat"), this::book);
+		assertThat(bookings).hasValue(2);
+	}
+
+	@Test
+	void aKeyCannotBeReusedForADifferentRequest() {
+		IdempotencyService service = newService();
+		service.createOnce(1L, "key-1", request("window seat"), this::book);
+
+		assertThatThrownBy(() -> service.createOnce(1L, "key-1", request("aisle seat"), this::book))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> newService().createOnce(1L, "key-1", request("aisle seat"), this::book))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(bookings).hasValue(1);
+	}
+
+	@Test
+	void aFailedAttemptLeavesTheKeyFree() {
+		IdempotencyService service = newService();
+		assertThatThrownBy(() -> service.createOnce(1L, "key-1", request(null), () -> {
+			throw new IllegalStateException("This time slot is already booked");
+		})).isInstanceOf(IllegalStateException.class);
+
+		service.createOnce(1L, "key-1", request(null), this::book);
+
+		assertThat(bookings).hasValue(1);
+		assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM idempotency_keys", Integer.class)).isOne();
+	}
+
+	@Test
+	void concurrentDuplicatesBookOnceAcrossInstances() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Supplier<BookingResponse> slowBooking = () -> {
+			started.countDown();
+			await(release);
+			return book();
+		};
+		IdempotencyService instance = newService();
+		IdempotencyService otherInstance = newService();
+
+		CompletableFuture<BookingResponse> first = CompletableFuture.supplyAsync(
+				() -> instance.createOnce(1L, "key-1", request(null), slowBooking));
+		await(started);
+		CompletableFuture<BookingResponse> sameInstance = CompletableFuture.supplyAsync(
+				() -> instance.createOnce(1L, "key-1", request(null), this::book));
+		CompletableFuture<BookingResponse> elsewhere = CompletableFuture.supplyAsync(
+				() -> otherInstance.createOnce(1L, "key-1", request(null), this::book));
+		release.countDown();
+
+		assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(sameInstance.get(5, TimeUnit.SECONDS))
+				.isEqualTo(elsewhere.get(5, TimeUnit.SECONDS));
+		assertThat(bookings).hasValue(1);
+	}
+
+	private IdempotencyService newService() {
+		return new IdempotencyService(jdbcTemplate, new TransactionTemplate(new JdbcTransactionManager(dataSource)),
+				JsonMapper.builder().build(), 100, Duration.ofHours(24), Duration.ofSeconds(5));
+	}
+
+	private BookingResponse book() {
+		return new BookingResponse((long) bookings.incrementAndGet(), SLOT, "CONFIRMED", null, "alice", 1L, null);
+	}
+
+	private static BookingRequest request(String notes) {
+		BookingRequest request = new BookingRequest();
+		request.setBookingDateTime(SLOT);
+		request.setNotes(notes);
+		return request;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
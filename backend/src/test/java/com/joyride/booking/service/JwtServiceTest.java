@@ -0,0 +1,75 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.model.Role;
+import com.joyride.booking.model.User;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtServiceTest {
+
+	private static final String SECRET = "JwtServiceTestSecretKeyThatIsAtLeast256BitsLongForHS256";
+
+	private final JwtService jwtService = new JwtService(SECRET, 60_000L);
+
+	@Test
+	void oneParseReturnsEveryClaim() {
+		TokenClaims claims = jwtService.validateAndExtract(jwtService.generateToken(rider()));
+
+		assertThat(claims.getSubject()).isEqualTo("rider");
+		assertThat(claims.getUserId()).isEqualTo(7L);
+		assertThat(claims.getRole()).isEqualTo("JOYRIDE");
+		assertThat(claims.getTokenVersion()).isEqualTo(3);
+		assertThat(claims.getExpiresAt()).isAfter(new Date());
+	}
+
+	@Test
+	void expiredTokensAreRejected() {
+		String expired = new JwtService(SECRET, -1_000L).generateToken(rider());
+
+		assertThatThrownBy(() -> jwtService.validateAndExtract(expired)).isInstanceOf(ExpiredJwtException.class);
+	}
+
+	@Test
+	void tokensSignedWithAnotherKeyAreRejected() {
+		String forged = new JwtService("AnotherSecretKeyThatIsAlsoAtLeast256BitsLongForHS256Signing", 60_000L)
+				.generateToken(rider());
+
+		assertThatThrownBy(() -> jwtService.validateAndExtract(forged)).isInstanceOf(SignatureException.class);
+	}
+
+	@Test
+	void tamperedTokensAreRejected() {
+		String token = jwtService.generateToken(rider());
+		String[] parts = token.split("\\.");
+		String otherPayload = jwtService.generateToken(Map.of(JwtService.ROLE_CLAIM, "ADMIN"), rider()).split("\\.")[1];
+
+		assertThatThrownBy(() -> jwtService.validateAndExtract(parts[0] + "." + otherPayload + "." + parts[2]))
+				.isInstanceOf(SignatureException.class);
+	}
+
+	@Test
+	void tokensWithoutAVersionClaimHaveNoVersion() {
+		String token = jwtService.generateToken(Map.of(JwtService.USER_ID_CLAIM, 7L, JwtService.ROLE_CLAIM, "USER"), rider());
+
+		TokenClaims claims = jwtService.validateAndExtract(token);
+
+		assertThat(claims.getUserId()).isEqualTo(7L);
+		assertThat(claims.getTokenVersion()).isNull();
+	}
+
+	private static User rider() {
+		User user = new User();
+		user.setId(7L);
+		user.setUsername("rider");
+		user.setRole(Role.JOYRIDE);
+		user.setTokenVersion(3);
+		return user;
+	}
+}
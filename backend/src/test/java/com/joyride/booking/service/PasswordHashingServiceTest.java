@@ -0,0 +1,65 @@
+package com.joyride.booking.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHashingServiceTest {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final AtomicInteger started = new AtomicInteger();
+	private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+	private final PasswordHashingService service = new PasswordHashingService(passwordEncoder, 1, 1);
+
+	@AfterEach
+	void shutDown() {
+		release.countDown();
+		service.destroy();
+	}
+
+	@Test
+	void hashesOnThePool() throws Exception {
+		when(passwordEncoder.encode(anyString())).thenAnswer(invocation ->
+				Thread.currentThread().getName() + ":" + invocation.getArgument(0));
+
+		assertThat(service.encode("secret").get(5, TimeUnit.SECONDS)).startsWith("password-hashing-").endsWith(":secret");
+	}
+
+	@Test
+	void aFullQueueRejectsRightAwayAndNeverRunsTheTask() throws Exception {
+		CompletableFuture<Integer> running = service.submit(this::blockUntilReleased);
+		CompletableFuture<Integer> queued = service.submit(this::blockUntilReleased);
+
+		assertThatThrownBy(() -> service.submit(this::blockUntilReleased))
+				.isInstanceOf(RejectedExecutionException.class);
+
+		release.countDown();
+		assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+		assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+		// Only the accepted tasks ever ran; the rejected one left nothing behind.
+		assertThat(started).hasValue(2);
+		assertThat(service.submit(started::incrementAndGet).get(5, TimeUnit.SECONDS)).isEqualTo(3);
+	}
+
+	private int blockUntilReleased() {
+		int order = started.incrementAndGet();
+		try {
+			release.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return order;
+	}
+}
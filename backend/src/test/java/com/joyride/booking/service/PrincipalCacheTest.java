@@ -0,0 +1,69 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.model.AuthenticatedUser;
+import com.joyride.booking.model.Role;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrincipalCacheTest {
+
+	private static final AuthenticatedUser RIDER = new AuthenticatedUser(1L, "rider", Role.USER);
+	private static final AuthenticatedUser ADMIN = new AuthenticatedUser(2L, "admin", Role.ADMIN);
+
+	private final PrincipalCache cache = new PrincipalCache(100, Duration.ofMinutes(5));
+
+	@Test
+	void principalsAreKeyedByTheirToken() {
+		cache.putPrincipal("token-a", RIDER, inMinutes(10));
+
+		assertThat(cache.getPrincipal("token-a")).isEqualTo(RIDER);
+		assertThat(cache.getPrincipal("token-b")).isNull();
+	}
+
+	@Test
+	void principalsNeverOutliveTheirToken() throws InterruptedException {
+		cache.putPrincipal("expired", RIDER, new Date(System.currentTimeMillis() - 1));
+		cache.putPrincipal("expiring", ADMIN, new Date(System.currentTimeMillis() + 100));
+
+		assertThat(cache.getPrincipal("expired")).isNull();
+		Thread.sleep(200);
+		assertThat(cache.getPrincipal("expiring")).isNull();
+	}
+
+	@Test
+	void entriesExpireAfterTheTtl() throws InterruptedException {
+		PrincipalCache shortLived = new PrincipalCache(100, Duration.ofMillis(100));
+		shortLived.putPrincipal("token-a", RIDER, inMinutes(10));
+		shortLived.putUser(RIDER);
+
+		Thread.sleep(200);
+
+		assertThat(shortLived.getPrincipal("token-a")).isNull();
+		assertThat(shortLived.getUser("rider")).isNull();
+	}
+
+	@Test
+	void evictingAUserDropsAllTheirTokensAndNoOneElses() {
+		cache.putPrincipal("rider-phone", RIDER, inMinutes(10));
+		cache.putPrincipal("rider-laptop", RIDER, inMinutes(10));
+		cache.putPrincipal("admin", ADMIN, inMinutes(10));
+		cache.putUser(RIDER);
+		cache.putUser(ADMIN);
+
+		cache.evictUser("rider");
+
+		assertThat(cache.getPrincipal("rider-phone")).isNull();
+		assertThat(cache.getPrincipal("rider-laptop")).isNull();
+		assertThat(cache.getUser("rider")).isNull();
+		assertThat(cache.getPrincipal("admin")).isEqualTo(ADMIN);
+		assertThat(cache.getUser("admin")).isEqualTo(ADMIN);
+	}
+
+	private static Date inMinutes(int minutes) {
+		return new Date(System.currentTimeMillis() + Duration.ofMinutes(minutes).toMillis());
+	}
+}
@@ -0,0 +1,182 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.event.SlotChangedEvent;
+import com.joyride.booking.event.WaitlistOfferedEvent;
+import com.joyride.booking.model.BookedSeat;
+import com.joyride.booking.repository.BookableResourceRepository;
+import com.joyride.booking.repository.BookingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SlotEventBroadcasterTest {
+
+	private static final long RESOURCE = 1L;
+	private static final LocalDate DATE = LocalDate.of(2030, 5, 1);
+	private static final int QUEUE_CAPACITY = 4;
+
+	private final BookingRepository bookingRepository = mock(BookingRepository.class);
+	private SlotEventBroadcaster broadcaster;
+
+	private SlotEventBroadcaster broadcaster(int maxSubscribers, Supplier<SseEmitter> emitters) {
+		BookableResourceRepository resourceRepository = mock(BookableResourceRepository.class);
+		when(resourceRepository.findAllWithWindows()).thenReturn(List.of(SlotOccupancyIndexTest.resource(RESOURCE, 2)));
+		SlotEngine slotEngine = new SlotEngine(resourceRepository);
+		SlotOccupancyIndex index = new SlotOccupancyIndex(bookingRepository, slotEngine, 1000, Duration.ofHours(1));
+		broadcaster = new SlotEventBroadcaster(slotEngine, index, maxSubscribers, QUEUE_CAPACITY,
+				Duration.ofMinutes(1), Duration.ofHours(1), 2) {
+			@Override
+			SseEmitter newEmitter(long timeoutMillis) {
+				return emitters.get();
+			}
+		};
+		return broadcaster;
+	}
+
+	@AfterEach
+	void tearDown() {
+		broadcaster.destroy();
+	}
+
+	@Test
+	void subscribersOnlyReceiveChangesInTheirRange() throws Exception {
+		when(bookingRepository.findBookedSeats(anyLong(), any(), any()))
+				.thenReturn(List.of(new BookedSeat(DATE.atTime(6, 20), 0)));
+		RecordingEmitter thatDay = new RecordingEmitter();
+		RecordingEmitter nextWeek = new RecordingEmitter();
+		List<RecordingEmitter> emitters = new ArrayList<>(List.of(thatDay, nextWeek));
+		broadcaster(10, () -> emitters.remove(0));
+		broadcaster.subscribe(null, DATE, DATE, null);
+		broadcaster.subscribe(RESOURCE, DATE.plusDays(7), DATE.plusDays(13), null);
+
+		broadcaster.onSlotChanged(new SlotChangedEvent(RESOURCE, DATE.atTime(6, 20), 0, true));
+
+		assertThat(thatDay.next()).contains(":subscribed");
+		assertThat(thatDay.next()).contains("event:slot-taken").contains("freeSeats=1");
+		assertThat(nextWeek.next()).contains(":subscribed");
+		assertThat(nextWeek.sent.poll(200, TimeUnit.MILLISECONDS)).isNull();
+	}
+
+	@Test
+	void everySubscriberOfAnUpdateGetsTheSameFrame() throws Exception {
+		when(bookingRepository.findBookedSeats(anyLong(), any(), any())).thenReturn(List.of());
+		List<RecordingEmitter> emitters = List.of(new RecordingEmitter(), new RecordingEmitter(), new RecordingEmitter());
+		List<RecordingEmitter> unused = new ArrayList<>(emitters);
+		broadcaster(10, () -> unused.remove(0));
+		for (int i = 0; i < emitters.size(); i++) {
+			broadcaster.subscribe(RESOURCE, DATE, DATE, null);
+		}
+
+		broadcaster.onSlotChanged(new SlotChangedEvent(RESOURCE, DATE.atTime(6, 0), 0, true));
+		broadcaster.onSlotChanged(new SlotChangedEvent(RESOURCE, DATE.atTime(6, 0), 0, false));
+
+		for (int event = 0; event < 3; event++) {
+			List<String> frames = new ArrayList<>();
+			for (RecordingEmitter emitter : emitters) {
+				frames.add(emitter.next());
+			}
+			assertThat(frames).doesNotContainNull().containsOnly(frames.get(0));
+		}
+		assertThat(emitters.get(0).sent).isEmpty();
+	}
+
+	@Test
+	void waitlistOffersOnlyReachTheirUserWhateverTheRange() throws Exception {
+		RecordingEmitter waiter = new RecordingEmitter();
+		RecordingEmitter other = new RecordingEmitter();
+		List<RecordingEmitter> emitters = new ArrayList<>(List.of(waiter, other));
+		broadcaster(10, () -> emitters.remove(0));
+		broadcaster.subscribe(RESOURCE, DATE.plusDays(7), DATE.plusDays(7), 1L);
+		broadcaster.subscribe(RESOURCE, DATE, DATE, 2L);
+
+		broadcaster.onWaitlistOffered(new WaitlistOfferedEvent(1L, 42L, RESOURCE, DATE.atTime(17, 0), DATE.atTime(16, 5)));
+
+		assertThat(waiter.next()).contains(":subscribed");
+		assertThat(waiter.next()).contains("event:waitlist-offer").contains("bookingId=42");
+		assertThat(other.next()).contains(":subscribed");
+		assertThat(other.sent.poll(200, TimeUnit.MILLISECONDS)).isNull();
+	}
+
+	@Test
+	void slowSubscribersAreDisconnectedInsteadOfBuffered() throws Exception {
+		when(bookingRepository.findBookedSeats(anyLong(), any(), any())).thenReturn(List.of());
+		CountDownLatch unblock = new CountDownLatch(1);
+		RecordingEmitter stuck = new RecordingEmitter() {
+			@Override
+			public void send(SseEventBuilder builder) throws IOException {
+				try {
+					unblock.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.send(builder);
+			}
+		};
+		broadcaster(10, () -> stuck);
+		broadcaster.subscribe(RESOURCE, DATE, DATE, null);
+
+		// One event is being written, the queue takes QUEUE_CAPACITY more and the next overflows.
+		for (int i = 0; i <= QUEUE_CAPACITY + 1; i++) {
+			broadcaster.onSlotChanged(new SlotChangedEvent(RESOURCE, DATE.atTime(17, 0), 0, i % 2 == 0));
+		}
+		unblock.countDown();
+
+		assertThat(stuck.completed).isTrue();
+		assertThat(broadcaster.subscriberCount()).isZero();
+	}
+
+	@Test
+	void subscriberCountIsBounded() {
+		broadcaster(2, RecordingEmitter::new);
+		broadcaster.subscribe(RESOURCE, DATE, DATE, null);
+		broadcaster.subscribe(RESOURCE, DATE, DATE, null);
+
+		assertThatThrownBy(() -> broadcaster.subscribe(RESOURCE, DATE, DATE, null))
+				.isInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> broadcaster.subscribe(RESOURCE, DATE, DATE.plusDays(90), null))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(broadcaster.subscriberCount()).isEqualTo(2);
+	}
+
+	// Builds the event on send, as SseEmitter itself does.
+	private static class RecordingEmitter extends SseEmitter {
+
+		final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+		volatile boolean completed;
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			sent.add(builder.build().stream()
+					.map(part -> part.getData().toString())
+					.collect(Collectors.joining()));
+		}
+
+		@Override
+		public void complete() {
+			completed = true;
+		}
+
+		String next() throws InterruptedException {
+			return sent.poll(5, TimeUnit.SECONDS);
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.event.ScheduleChangedEvent;
+import com.joyride.booking.event.SlotChangedEvent;
+import com.joyride.booking.model.BookableResource;
+import com.joyride.booking.model.BookedSeat;
+import com.joyride.booking.model.ScheduleWindow;
+import com.joyride.booking.repository.BookableResourceRepository;
+import com.joyride.booking.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SlotOccupancyIndexTest {
+
+	private static final long RESOURCE = 1L;
+	private static final LocalDate DATE = LocalDate.of(2030, 5, 1);
+
+	private BookingRepository bookingRepository;
+	private BookableResourceRepository resourceRepository;
+	private SlotEngine slotEngine;
+	private SlotOccupancyIndex index;
+
+	@BeforeEach
+	void setUp() {
+		bookingRepository = mock(BookingRepository.class);
+		resourceRepository = mock(BookableResourceRepository.class);
+		when(resourceRepository.findAllWithWindows()).thenReturn(List.of(resource(RESOURCE, 1)));
+		slotEngine = new SlotEngine(resourceRepository);
+		index = new SlotOccupancyIndex(bookingRepository, slotEngine, 1000, Duration.ofHours(1));
+	}
+
+	@Test
+	void loadsColdDateOnceAndServesRepeatsFromMemory() {
+		when(bookingRepository.findBookedSeats(anyLong(), any(), any()))
+				.thenReturn(List.of(new BookedSeat(DATE.atTime(6, 20), 0)));
+
+		assertThat(isFull(DATE.atTime(6, 20))).isTrue();
+		assertThat(isFull(DATE.atTime(6, 40))).isFalse();
+		assertThat(isFull(DATE.atTime(17, 0))).isFalse();
+
+		verify(bookingRepository, times(1)).findBookedSeats(RESOURCE, DATE.atStartOfDay(), DATE.plusDays(1).atStartOfDay());
+	}
+
+	@Test
+	void keepsAtMostTheConfiguredNumberOfDays() {
+		when(bookingRepository.findBookedSeats(anyLong(), any(), any())).thenReturn(List.of());
+		SlotOccupancyIndex bounded = new SlotOccupancyIndex(bookingRepository, slotEngine, 5, Duration.ofHours(1));
+
+		for (int day = 0; day < 60; day++) {
+			bounded.occupancy(RESOURCE, DATE.plusDays(day));
+		}
+		bounded.occupancy(RESOURCE, DATE, DATE.plusDays(61));
+
+		assertThat(bounded.cachedDays()).isLessThanOrEqualTo(5);
+	}
+
+	@Test
+	void committedChangesAreWrittenThrough() {
+		when(bookingRepository.findBookedSeats(anyLong(), any(), any())).thenReturn(List.of());
+		LocalDateTime slot = DATE.atTime(17, 20);
+		index.occupancy(RESOURCE, DATE);
+
+		index.onSlotChanged(new SlotChangedEvent(RESOURCE, slot, 0, true));
+		assertThat(isFull(slot)).isTrue();
+
+		index.onSlotChanged(new SlotChangedEvent(RESOURCE, slot, 0, false));
+		assertThat(isFull(slot)).isFalse();
+
+		verify(bookingRepository, times(1)).findBookedSeats(anyLong(), any(), any());
+	}
+
+	@Test
+	void rangeLoadFetchesOnlyColdDatesInOneQuery() {
+		LocalDate last = DATE.plusDays(6);
+		when(bookingRepository.findBookedSeats(anyLong(), any(), any()))
+				.thenReturn(List.of())
+				.thenReturn(List.of(new BookedSeat(DATE.plusDays(3).atTime(6, 0), 0)));
+		index.occupancy(RESOURCE, DATE);
+
+		Map<LocalDate, DayOccupancy> week = index.occupancy(RESOURCE, DATE, last);
+
+		assertThat(week).hasSize(7);
+		assertThat(week.get(DATE.plusDays(3)).taken(0)).isEqualTo(1);
+		verify(bookingRepository).findBookedSeats(RESOURCE, DATE.plusDays(1).atStartOfDay(), last.plusDays(1).atStartOfDay());
+
+		index.occupancy(RESOURCE, DATE, last);
+		verify(bookingRepository, times(2)).findBookedSeats(anyLong(), any(), any());
+	}
+
+	@Test
+	void doesNotCacheLoadThatRacedWithWrite() {
+		LocalDateTime slot = DATE.atTime(7, 0);
+		when(bookingRepository.findBookedSeats(anyLong(), any(), any())).thenAnswer(invocation -> {
+			index.onSlotChanged(new SlotChangedEvent(RESOURCE, slot, 0, true));
+			return List.of();
+		}).thenReturn(List.of(new BookedSeat(slot, 0)));
+
+		assertThat(isFull(slot)).isFalse();
+		assertThat(isFull(slot)).isTrue();
+
+		verify(bookingRepository, times(2)).findBookedSeats(anyLong(), any(), any());
+	}
+
+	@Test
+	void claimsHandOutEachSeatOnceUntilReleased() {
+		when(resourceRepository.findAllWithWindows()).thenReturn(List.of(resource(RESOURCE, 2)));
+		slotEngine.onScheduleChanged(new ScheduleChangedEvent(RESOURCE));
+		when(bookingRepository.findBookedSeats(anyLong(), any(), any())).thenReturn(List.of());
+		LocalDateTime slot = DATE.atTime(6, 0);
+
+		assertThat(index.tryClaim(RESOURCE, slot)).isZero();
+		assertThat(index.tryClaim(RESOURCE, slot)).isEqualTo(1);
+		assertThat(index.tryClaim(RESOURCE, slot)).isEqualTo(-1);
+
+		index.release(RESOURCE, slot, 0);
+		assertThat(index.tryClaim(RESOURCE, slot)).isZero();
+		assertThat(index.tryClaim(RESOURCE, DATE.atTime(6, 10))).isEqualTo(-1);
+	}
+
+	@Test
+	void recompiledScheduleInvalidatesCachedDates() {
+		when(bookingRepository.findBookedSeats(eq(RESOURCE), any(), any()))
+				.thenReturn(List.of(new BookedSeat(DATE.atTime(6, 0), 0)));
+		assertThat(isFull(DATE.atTime(6, 0))).isTrue();
+
+		when(resourceRepository.findAllWithWindows()).thenReturn(List.of(resource(RESOURCE, 2)));
+		slotEngine.onScheduleChanged(new ScheduleChangedEvent(RESOURCE));
+
+		assertThat(isFull(DATE.atTime(6, 0))).isFalse();
+		verify(bookingRepository, times(2)).findBookedSeats(anyLong(), any(), any());
+	}
+
+	private boolean isFull(LocalDateTime slot) {
+		DayOccupancy day = index.occupancy(RESOURCE, slot.toLocalDate());
+		return day.isFull(day.schedule().indexOf(slot.toLocalTime()));
+	}
+
+	/** A resource with the original opening hours and the given capacity per slot. */
+	static BookableResource resource(long id, int capacity) {
+		BookableResource resource = new BookableResource();
+		resource.setId(id);
+		resource.setName("vehicle-" + id);
+		resource.replaceWindows(List.of(
+				window(LocalTime.of(6, 0), LocalTime.of(7, 30), capacity),
+				window(LocalTime.of(17, 0), LocalTime.of(18, 30), capacity)));
+		return resource;
+	}
+
+	private static ScheduleWindow window(LocalTime start, LocalTime end, int capacity) {
+		ScheduleWindow window = new ScheduleWindow();
+		window.setStartTime(start);
+		window.setEndTime(end);
+		window.setSlotMinutes(20);
+		window.setCapacity(capacity);
+		return window;
+	}
+}
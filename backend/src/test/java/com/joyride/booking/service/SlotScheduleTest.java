@@ -0,0 +1,64 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.model.ScheduleWindow;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SlotScheduleTest {
+
+	@Test
+	void legacyWindowsCompileToTheOriginalTenSlots() {
+		SlotSchedule schedule = SlotEngine.compileWeek(SlotOccupancyIndexTest.resource(1, 1).getWindows())[0];
+
+		assertThat(schedule.size()).isEqualTo(10);
+		assertThat(schedule.startTime(0)).isEqualTo(LocalTime.of(6, 0));
+		assertThat(schedule.startTime(4)).isEqualTo(LocalTime.of(7, 20));
+		assertThat(schedule.startTime(9)).isEqualTo(LocalTime.of(18, 20));
+		assertThat(schedule.indexOf(LocalTime.of(17, 40))).isEqualTo(7);
+		assertThat(schedule.indexOf(LocalTime.of(7, 40))).isEqualTo(-1);
+		assertThat(schedule.indexOf(LocalTime.of(6, 10))).isEqualTo(-1);
+		assertThat(schedule.indexOf(LocalTime.of(6, 0, 30))).isEqualTo(-1);
+	}
+
+	@Test
+	void weekdayWindowsOnlyApplyToTheirDay() {
+		ScheduleWindow everyDay = window(null, LocalTime.of(9, 0), LocalTime.of(10, 0), 30, 1);
+		ScheduleWindow saturday = window(DayOfWeek.SATURDAY, LocalTime.of(14, 0), LocalTime.of(16, 0), 60, 4);
+
+		SlotSchedule[] week = SlotEngine.compileWeek(List.of(everyDay, saturday));
+
+		assertThat(week[DayOfWeek.MONDAY.ordinal()].size()).isEqualTo(2);
+		SlotSchedule sat = week[DayOfWeek.SATURDAY.ordinal()];
+		assertThat(sat.size()).isEqualTo(4);
+		int slot = sat.indexOf(LocalTime.of(15, 0));
+		assertThat(sat.capacity(slot)).isEqualTo(4);
+		assertThat(sat.durationMinutes(slot)).isEqualTo(60);
+	}
+
+	@Test
+	void overlappingWindowsAreRejected() {
+		List<ScheduleWindow> windows = List.of(
+				window(null, LocalTime.of(9, 0), LocalTime.of(10, 0), 20, 1),
+				window(DayOfWeek.MONDAY, LocalTime.of(9, 40), LocalTime.of(11, 0), 20, 1));
+
+		assertThatThrownBy(() -> ResourceService.validateWindows(windows))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("MONDAY");
+	}
+
+	private static ScheduleWindow window(DayOfWeek day, LocalTime start, LocalTime end, int minutes, int capacity) {
+		ScheduleWindow window = new ScheduleWindow();
+		window.setDayOfWeek(day);
+		window.setStartTime(start);
+		window.setEndTime(end);
+		window.setSlotMinutes(minutes);
+		window.setCapacity(capacity);
+		return window;
+	}
+}
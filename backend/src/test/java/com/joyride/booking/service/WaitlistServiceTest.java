@@ -0,0 +1,136 @@
+package com.joyride.booking.service;
+
+import com.joyride.booking.EmbeddedPostgresConfig;
+import com.joyride.booking.dto.BookingFilter;
+import com.joyride.booking.dto.BookingResponse;
+import com.joyride.booking.dto.WaitlistEntryResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Not transactional: offers lock rows with SKIP LOCKED and rely on after-commit events.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({EmbeddedPostgresConfig.class, SimpleMeterRegistry.class, AvailabilityCalendar.class, SlotEngine.class,
+		SlotOccupancyIndex.class, BookingService.class, WaitlistService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WaitlistServiceTest {
+
+	// Each test gets its own date, since the occupancy index outlives the rows deleted after it.
+	private static final AtomicInteger DAYS_AHEAD = new AtomicInteger(2);
+
+	@Autowired
+	private WaitlistService waitlistService;
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private SlotEngine slotEngine;
+
+	@Autowired
+	private AvailabilityCalendar availabilityCalendar;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	// A slot of the default resource, which has one seat.
+	private LocalDateTime slot;
+	private long holder;
+	private long first;
+	private long second;
+
+	@BeforeEach
+	void fullSlotWithTwoWaiters() {
+		slot = LocalDate.now().plusDays(DAYS_AHEAD.incrementAndGet()).atTime(17, 0);
+		jdbcTemplate.update("INSERT INTO admin_availability (available_date, is_available) VALUES (?, true)",
+				slot.toLocalDate());
+		availabilityCalendar.invalidate();
+		holder = user("holder");
+		first = user("first");
+		second = user("second");
+		bookingService.createBooking(holder, null, slot, null);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.execute("DELETE FROM waitlist_entries");
+		jdbcTemplate.execute("DELETE FROM bookings");
+		jdbcTemplate.execute("DELETE FROM users");
+		jdbcTemplate.execute("DELETE FROM admin_availability");
+	}
+
+	@Test
+	void aFreedSeatIsHeldForTheFirstInLine() {
+		WaitlistEntryResponse firstEntry = waitlistService.join(first, null, slot);
+		WaitlistEntryResponse secondEntry = waitlistService.join(second, null, slot);
+		assertThat(firstEntry.getPosition()).isEqualTo(1);
+		assertThat(secondEntry.getPosition()).isEqualTo(2);
+		// Nothing is free yet.
+		assertThat(waitlistService.offerNext(slotEngine.resolve(null), slot)).isFalse();
+
+		bookingService.cancelBooking(bookingsOf(holder).get(0).getId(), holder);
+
+		assertThat(waitlistService.offerNext(slotEngine.resolve(null), slot)).isTrue();
+		assertThat(waitlistService.offerNext(slotEngine.resolve(null), slot)).isFalse();
+		assertThat(bookingsOf(first)).singleElement()
+				.satisfies(held -> assertThat(held.getStatus()).isEqualTo("HELD"));
+		assertThat(waitlistService.getUserEntries(first)).isEmpty();
+		assertThat(waitlistService.getUserEntries(second)).singleElement()
+				.satisfies(entry -> assertThat(entry.getPosition()).isEqualTo(1));
+	}
+
+	@Test
+	void onlyFullSlotsCanBeWaitedForAndOnlyOnce() {
+		waitlistService.join(first, null, slot);
+
+		assertThatThrownBy(() -> waitlistService.join(first, null, slot))
+				.isInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> waitlistService.join(first, null, slot.plusMinutes(20)))
+				.isInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> waitlistService.join(first, null, slot.plusMinutes(5)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void usersWithASeatInTheSlotCannotWaitForAnother() {
+		assertThatThrownBy(() -> waitlistService.join(holder, null, slot))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("already have a seat");
+
+		waitlistService.join(first, null, slot);
+		bookingService.cancelBooking(bookingsOf(holder).get(0).getId(), holder);
+		assertThat(waitlistService.offerNext(slotEngine.resolve(null), slot)).isTrue();
+
+		// The offered hold fills the slot again and counts as a seat too.
+		assertThatThrownBy(() -> waitlistService.join(first, null, slot))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("already have a seat");
+		assertThat(waitlistService.getUserEntries(first)).isEmpty();
+	}
+
+	private List<BookingResponse> bookingsOf(long userId) {
+		return bookingService.getUserBookings(userId, BookingFilter.of(null, null, null), null, 10).getItems();
+	}
+
+	private long user(String name) {
+		return jdbcTemplate.queryForObject("INSERT INTO users (username, email, password, role, enabled) "
+				+ "VALUES (?, ?, 'x', 'USER', true) RETURNING id", Long.class, name, name + "@example.com");
+	}
+}
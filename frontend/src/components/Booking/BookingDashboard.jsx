@@ -4,18 +4,66 @@ import { Calendar, Clock, AlertCircle, CheckCircle } from 'lucide-react';
 
 const BookingDashboard = () => {
   const [selectedDate, setSelectedDate] = useState(new Date().toISOString().split('T')[0]);
+  const [resources, setResources] = useState([]);
+  const [resourceId, setResourceId] = useState(null);
   const [availableSlots, setAvailableSlots] = useState([]);
   const [loading, setLoading] = useState(false);
   const [message, setMessage] = useState(null);
 
   useEffect(() => {
-    loadAvailableSlots();
-  }, [selectedDate]);
+    bookingAPI.getResources()
+      .then((response) => setResources(response.data))
+      .catch((error) => console.error('Failed to load vehicles:', error));
+  }, []);
+
+  // Slots are (re)loaded whenever the event stream opens, then kept current from its events.
+  useEffect(() => {
+    let unsubscribe = () => {};
+    let retry;
+    const connect = () => {
+      unsubscribe = bookingAPI.subscribeSlotEvents(selectedDate, selectedDate, resourceId, {
+        onOpen: loadAvailableSlots,
+        onEvent: handleSlotEvent,
+        onClose: () => {
+          loadAvailableSlots();
+          retry = setTimeout(connect, 5000);
+        },
+      });
+    };
+    connect();
+    return () => {
+      clearTimeout(retry);
+      unsubscribe();
+    };
+  }, [selectedDate, resourceId]);
+
+  const handleSlotEvent = (event, data) => {
+    const { slot, freeSeats } = data;
+    if (event === 'slot-taken' && freeSeats === 0) {
+      setAvailableSlots((slots) => slots.filter((s) => s !== slot));
+    } else if (event === 'slot-freed' && new Date(slot) > new Date()) {
+      setAvailableSlots((slots) => (slots.includes(slot) ? slots : [...slots, slot].sort()));
+    } else if (event === 'waitlist-offer') {
+      handleWaitlistOffer(data);
+    }
+  };
+
+  // The seat is held for us until holdExpiresAt; declining just lets the hold lapse.
+  const handleWaitlistOffer = async ({ bookingId, slot }) => {
+    if (!confirm(`A seat at ${formatTime(slot)} on ${new Date(slot).toLocaleDateString()} opened up for you. Book it?`)) return;
+    try {
+      await bookingAPI.confirmHold(bookingId);
+      setMessage({ type: 'success', text: 'Booking created successfully!' });
+    } catch (error) {
+      setMessage({ type: 'error', text: 'The offer has expired' });
+    }
+    setTimeout(() => setMessage(null), 3000);
+  };
 
   const loadAvailableSlots = async () => {
     setLoading(true);
     try {
-      const response = await bookingAPI.getAvailableSlots(selectedDate);
+      const response = await bookingAPI.getAvailableSlots(selectedDate, resourceId);
       setAvailableSlots(response.data);
     } catch (error) {
       console.error('Failed to load slots:', error);
@@ -26,8 +74,17 @@ const BookingDashboard = () => {
   };
 
   const handleBookSlot = async (slotDateTime) => {
+    const booking = { bookingDateTime: slotDateTime, resourceId };
+    const idempotencyKey = crypto.randomUUID();
     try {
-      await bookingAPI.createBooking({ bookingDateTime: slotDateTime });
+      try {
+        await bookingAPI.createBooking(booking, idempotencyKey);
+      } catch (error) {
+        // No response means we cannot tell whether it was booked; retrying with the
+        // same key is safe either way.
+        if (error.response) throw error;
+        await bookingAPI.createBooking(booking, idempotencyKey);
+      }
       setMessage({ type: 'success', text: 'Booking created successfully!' });
       loadAvailableSlots();
       setTimeout(() => setMessage(null), 3000);
@@ -46,14 +103,8 @@ const BookingDashboard = () => {
   };
 
   const groupSlotsByPeriod = (slots) => {
-    const morning = slots.filter(s => {
-      const hour = new Date(s).getHours();
-      return hour >= 6 && hour < 12;
-    });
-    const evening = slots.filter(s => {
-      const hour = new Date(s).getHours();
-      return hour >= 17;
-    });
+    const morning = slots.filter(s => new Date(s).getHours() < 12);
+    const evening = slots.filter(s => new Date(s).getHours() >= 12);
     return { morning, evening };
   };
 
@@ -83,6 +134,24 @@ const BookingDashboard = () => {
             </div>
           )}
 
+          {resources.length > 1 && (
+            <div className="mb-6">
+              <label htmlFor="resource-picker" className="block text-lg font-bold mb-2 text-gray-900 dark:text-white tracking-wide">
+                Select Vehicle
+              </label>
+              <select
+                id="resource-picker"
+                value={resourceId ?? resources[0].id}
+                onChange={(e) => setResourceId(Number(e.target.value))}
+                className="w-full px-5 py-3 border border-gray-300 dark:border-gray-700 rounded-xl bg-white/80 dark:bg-black/70 text-gray-900 dark:text-white text-lg shadow-sm"
+              >
+                {resources.map((resource) => (
+                  <option key={resource.id} value={resource.id}>{resource.name}</option>
+                ))}
+              </select>
+            </div>
+          )}
+
           <div className="mb-10">
             <label className="block text-lg font-bold mb-2 text-gray-900 dark:text-white tracking-wide">
               Select Date
@@ -123,7 +192,7 @@ const BookingDashboard = () => {
                 <div className="bg-white/90 dark:bg-gray-900/90 rounded-2xl shadow-lg border border-gray-200 dark:border-gray-800 p-7">
                   <h2 className="text-2xl font-bold mb-6 text-gray-900 dark:text-white flex items-center tracking-tight">
                     <Clock className="mr-2 text-[var(--color-primary-light)] dark:text-[var(--color-primary-dark)]" />
-                    Morning (6:00 AM - 7:30 AM)
+                    Morning
                   </h2>
                   <div className="grid grid-cols-2 md:grid-cols-3 lg:grid-cols-4 gap-5">
                     {morning.map((slot) => (
@@ -143,7 +212,7 @@ const BookingDashboard = () => {
                 <div className="bg-white/90 dark:bg-gray-900/90 rounded-2xl shadow-lg border border-gray-200 dark:border-gray-800 p-7">
                   <h2 className="text-2xl font-bold mb-6 text-gray-900 dark:text-white flex items-center tracking-tight">
                     <Clock className="mr-2 text-[var(--color-primary-light)] dark:text-[var(--color-primary-dark)]" />
-                    Evening (5:00 PM - 6:30 PM)
+                    Afternoon &amp; Evening
                   </h2>
                   <div className="grid grid-cols-2 md:grid-cols-3 lg:grid-cols-4 gap-5">
                     {evening.map((slot) => (
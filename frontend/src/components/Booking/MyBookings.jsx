@@ -4,17 +4,23 @@ import { Calendar, Trash2, Clock, AlertCircle } from 'lucide-react';
 
 const MyBookings = () => {
   const [bookings, setBookings] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [loading, setLoading] = useState(true);
 
   useEffect(() => {
     loadBookings();
   }, []);
 
-  const loadBookings = async () => {
+  const loadBookings = async (cursor) => {
     try {
-      const response = await bookingAPI.getMyBookings();
-      const confirmedBookings = response.data.filter(b => b.status === 'CONFIRMED');
-      setBookings(confirmedBookings);
+      const response = await bookingAPI.getMyBookings({
+        status: 'CONFIRMED',
+        from: new Date().toLocaleDateString('en-CA'),
+        cursor,
+      });
+      const { items, nextCursor } = response.data;
+      setBookings(cursor ? (prev) => [...prev, ...items] : items);
+      setNextCursor(nextCursor);
     } catch (error) {
       console.error('Failed to load bookings:', error);
     } finally {
@@ -101,6 +107,14 @@ const MyBookings = () => {
                   </div>
                 );
               })}
+              {nextCursor && (
+                <button
+                  onClick={() => loadBookings(nextCursor)}
+                  className="w-full p-3 border-2 border-[var(--color-primary-light)] dark:border-[var(--color-primary-dark)] text-[var(--color-primary-light)] dark:text-[var(--color-primary-dark)] rounded-xl bg-white/70 dark:bg-gray-900/70 font-bold shadow hover:shadow-xl transition"
+                >
+                  Load more
+                </button>
+              )}
             </div>
           )}
         </div>
@@ -35,25 +35,97 @@ api.interceptors.response.use(
   }
 );
 
+// EventSource cannot send the Authorization header, so server-sent events are read
+// from a fetch stream instead. Returns a function that closes the stream.
+const streamEvents = (path, params, { onOpen, onEvent, onClose }) => {
+  const controller = new AbortController();
+  const query = new URLSearchParams(
+    Object.entries(params).filter(([, value]) => value != null)
+  );
+
+  (async () => {
+    try {
+      const response = await fetch(`${API_URL}${path}?${query}`, {
+        headers: {
+          Accept: 'text/event-stream',
+          Authorization: `Bearer ${localStorage.getItem('token')}`,
+        },
+        signal: controller.signal,
+      });
+      if (!response.ok) throw new Error(`Event stream failed: ${response.status}`);
+      onOpen?.();
+
+      const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+      let buffer = '';
+      for (;;) {
+        const { value, done } = await reader.read();
+        if (done) break;
+        buffer += value;
+        const blocks = buffer.split('\n\n');
+        buffer = blocks.pop();
+        for (const block of blocks) {
+          let event = 'message';
+          let data = '';
+          for (const line of block.split('\n')) {
+            if (line.startsWith('event:')) event = line.slice(6).trim();
+            else if (line.startsWith('data:')) data += line.slice(5);
+          }
+          if (data) onEvent(event, JSON.parse(data));
+        }
+      }
+    } catch (error) {
+      if (controller.signal.aborted) return;
+      console.error('Event stream closed:', error);
+    }
+    if (!controller.signal.aborted) onClose?.();
+  })();
+
+  return () => controller.abort();
+};
+
 export const authAPI = {
   login: (credentials) => api.post('/auth/login', credentials),
   register: (userData) => api.post('/auth/register', userData),
 };
 
 export const bookingAPI = {
-  createBooking: (bookingData) => api.post('/bookings', bookingData),
-  getMyBookings: () => api.get('/bookings/my-bookings'),
+  // Retries must reuse the key so the server returns the original booking.
+  createBooking: (bookingData, idempotencyKey) =>
+    api.post('/bookings', bookingData, { headers: { 'Idempotency-Key': idempotencyKey } }),
+  // A hold keeps the seat for a few minutes (see holdExpiresAt) until it is confirmed.
+  holdSlot: (bookingData) => api.post('/bookings/holds', bookingData),
+  confirmHold: (id) => api.post(`/bookings/${id}/confirm`),
+  // Waiting users are offered freed seats as a waitlist-offer event on the slot stream.
+  joinWaitlist: (bookingData) => api.post('/bookings/waitlist', bookingData),
+  getMyWaitlist: () => api.get('/bookings/waitlist'),
+  leaveWaitlist: (id) => api.delete(`/bookings/waitlist/${id}`),
+  getMyBookings: (params) => api.get('/bookings/my-bookings', { params }),
   cancelBooking: (id) => api.delete(`/bookings/${id}`),
-  getAvailableSlots: (date) => api.get('/bookings/available-slots', { params: { date } }),
+  getAvailableSlots: (date, resourceId) =>
+    api.get('/bookings/available-slots', { params: { date, resourceId } }),
+  getAvailableSlotsRange: (from, to, resourceId) =>
+    api.get('/bookings/available-slots/range', { params: { from, to, resourceId } }),
+  getResources: () => api.get('/bookings/resources'),
+  subscribeSlotEvents: (from, to, resourceId, handlers) =>
+    streamEvents('/bookings/available-slots/events', { from, to, resourceId }, handlers),
 };
 
 export const adminAPI = {
   setAvailability: (date, isAvailable) => 
     api.post('/admin/availability', null, { params: { date, isAvailable } }),
+  setAvailabilityBulk: (from, to, available, daysOfWeek) =>
+    api.post('/admin/availability/bulk', { from, to, available, daysOfWeek }),
   getAvailability: (startDate, endDate) => 
     api.get('/admin/availability', { params: { startDate, endDate } }),
   getDailyBookings: (date) => 
     api.get('/admin/bookings', { params: { date } }),
+  getBookingHistory: (params) =>
+    api.get('/admin/bookings/history', { params }),
+  exportBookings: (params) =>
+    api.get('/admin/bookings/export', { params, responseType: 'blob' }),
+  getResources: () => api.get('/admin/resources'),
+  createResource: (resource) => api.post('/admin/resources', resource),
+  updateResource: (id, resource) => api.put(`/admin/resources/${id}`, resource),
 };
 
 export default api;
\ No newline at end of file